@@ -0,0 +1,134 @@
+package greg;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import greg.logic.Greg;
+import greg.storage.DurabilityMode;
+import greg.storage.StorageConfig;
+
+/**
+ * Headless entry point that runs commands from a file or standard input through {@link Greg}
+ * and writes each response to standard output, for importing or replaying many commands:
+ * <pre>
+ * java -cp greg.jar greg.BatchLauncher [--data &lt;save file&gt;] [--flush-every &lt;n&gt;] [--quiet] [script | -]
+ * </pre>
+ * Without a script, or with "-", commands are read from standard input, one per line; blank
+ * lines are skipped and {@code bye} ends the batch early. Changes are written to disk at the
+ * end of the batch, or every {@code n} commands with {@code --flush-every}, rather than after
+ * each command. The number of commands run and the throughput are reported on standard error,
+ * so they never mix with the responses.
+ */
+public class BatchLauncher {
+
+    private static final String DEFAULT_DATA_PATH = "data/greg.txt";
+    private static final String USAGE = "Usage: BatchLauncher [--data <save file>] [--flush-every <n>] [--quiet] "
+            + "[script | -]";
+
+    private BatchLauncher() {
+    }
+
+    public static void main(String[] args) {
+        String dataPath = DEFAULT_DATA_PATH;
+        String scriptPath = "-";
+        int flushEvery = 0;
+        boolean isQuiet = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--data":
+                        dataPath = args[++i];
+                        break;
+                    case "--flush-every":
+                        flushEvery = Integer.parseInt(args[++i]);
+                        break;
+                    case "--quiet":
+                        isQuiet = true;
+                        break;
+                    default:
+                        scriptPath = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.ON_EXIT;
+        Greg greg = new Greg(dataPath, config);
+
+        long start = System.nanoTime();
+        int commandCount = 0;
+        String error;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = open(scriptPath)) {
+            if (!isQuiet) {
+                out.write(greg.getWelcomeMessage());
+                out.write('\n');
+            }
+            commandCount = run(greg, in, isQuiet ? Writer.nullWriter() : out, flushEvery);
+            error = greg.shutdown();
+            out.flush();
+        } catch (IOException e) {
+            greg.shutdown();
+            error = "Could not run commands: " + e.getMessage();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Ran " + commandCount + " commands in " + millis + " ms ("
+                + commandCount * 1000L / Math.max(millis, 1) + " commands/s)");
+        if (!error.isEmpty()) {
+            System.err.println(error);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every command from {@code commands} until it ends or a command exits Greg.
+     *
+     * @param greg Greg instance to run the commands on
+     * @param commands one command per line
+     * @param out where each response is written, followed by a newline
+     * @param flushEvery write changes to disk after this many commands; 0 to leave them buffered
+     * @return number of commands run
+     * @throws IOException if a command cannot be read, a response cannot be written, or buffered
+     *     changes cannot be saved
+     */
+    static int run(Greg greg, BufferedReader commands, Writer out, int flushEvery) throws IOException {
+        int count = 0;
+        String line;
+        while (!greg.isExit() && (line = commands.readLine()) != null) {
+            String input = line.trim();
+            if (input.isEmpty()) {
+                continue;
+            }
+
+            out.write(greg.getResponse(input));
+            out.write('\n');
+            count++;
+
+            if (flushEvery > 0 && count % flushEvery == 0) {
+                String error = greg.flush();
+                if (!error.isEmpty()) {
+                    throw new IOException(error);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static BufferedReader open(String scriptPath) throws IOException {
+        if (scriptPath.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        }
+        return Files.newBufferedReader(Path.of(scriptPath), StandardCharsets.UTF_8);
+    }
+}
@@ -6,6 +6,8 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import greg.logic.Greg;
+import greg.storage.DurabilityMode;
+import greg.storage.StorageConfig;
 import greg.ui.MainWindow;
 
 /**
@@ -14,7 +16,7 @@ import greg.ui.MainWindow;
  */
 public class Main extends Application {
 
-    private Greg greg = new Greg("data/greg.txt"); // later you can pass in Storage/TaskList if your Greg needs it
+    private Greg greg = new Greg("data/greg.txt", createStorageConfig());
 
     @Override
     public void start(Stage stage) {
@@ -36,4 +38,20 @@ public class Main extends Application {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        // Closing the window without "bye" must still write buffered changes.
+        String error = greg.shutdown();
+        if (!error.isEmpty()) {
+            System.err.println(error);
+        }
+    }
+
+    private static StorageConfig createStorageConfig() {
+        // Keep disk writes off the JavaFX thread; changes reach the disk within a second.
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.PER_INTERVAL;
+        return config;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package greg;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import greg.logic.CommandType;
+import greg.logic.ConcurrentGreg;
+import greg.storage.DurabilityMode;
+import greg.storage.StorageConfig;
+
+/**
+ * Headless entry point that serves one shared task list to any number of local clients:
+ * <pre>
+ * java -cp greg.jar greg.ServerLauncher [--data &lt;save file&gt;] [--port &lt;n&gt; | --socket &lt;path&gt;]
+ *     [--flush-ms &lt;n&gt;]
+ * </pre>
+ * The server listens on a TCP port of the loopback address, or on a Unix-domain socket with
+ * {@code --socket}. Each connection is served by its own thread and sends one command per line.
+ * Every response, starting with the welcome message sent on connecting, is followed by a line
+ * holding a single {@code .}; a response line that starts with {@code .} has another one put in
+ * front of it, as in SMTP. {@code bye} closes the connection, not the server.
+ * <p>
+ * Commands from all clients run through a {@link ConcurrentGreg}, so reads run in parallel
+ * and changes one at a time. Changes from all clients are buffered and written to disk together
+ * at most once every {@code --flush-ms} milliseconds, and when the server is stopped.
+ */
+public class ServerLauncher {
+
+    private static final String DEFAULT_DATA_PATH = "data/greg.txt";
+    private static final int DEFAULT_PORT = 8765;
+    private static final String END_OF_RESPONSE = ".";
+    private static final String USAGE = "Usage: ServerLauncher [--data <save file>] [--port <n> | --socket <path>] "
+            + "[--flush-ms <n>]";
+
+    private ServerLauncher() {
+    }
+
+    public static void main(String[] args) {
+        String dataPath = DEFAULT_DATA_PATH;
+        int port = DEFAULT_PORT;
+        String socketPath = null;
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.PER_INTERVAL;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--data":
+                        dataPath = args[++i];
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--socket":
+                        socketPath = args[++i];
+                        break;
+                    case "--flush-ms":
+                        config.flushIntervalMillis = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        ConcurrentGreg greg = new ConcurrentGreg(dataPath, config);
+        ServerSocketChannel server;
+        try {
+            server = open(socketPath, port);
+        } catch (IOException e) {
+            System.err.println("Could not listen for clients: " + e.getMessage());
+            greg.shutdown();
+            System.exit(1);
+            return;
+        }
+
+        String boundSocketPath = socketPath;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closeQuietly(server);
+            if (boundSocketPath != null) {
+                try {
+                    Files.deleteIfExists(Path.of(boundSocketPath));
+                } catch (IOException e) {
+                    // A later server reports the stale socket file when it cannot bind.
+                }
+            }
+            String error = greg.shutdown();
+            if (!error.isEmpty()) {
+                System.err.println(error);
+            }
+        }));
+
+        try {
+            System.err.println("Serving " + dataPath + " on " + server.getLocalAddress());
+        } catch (IOException e) {
+            // Only the message is lost.
+        }
+        serve(greg, server);
+    }
+
+    /**
+     * Accepts clients until the server channel is closed, serving each on its own thread.
+     *
+     * @param greg shared Greg instance
+     * @param server bound server channel
+     */
+    static void serve(ConcurrentGreg greg, ServerSocketChannel server) {
+        AtomicInteger clientCount = new AtomicInteger();
+        ExecutorService clients = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "greg-client-" + clientCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                clients.execute(() -> {
+                    try (client) {
+                        handle(greg, new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8)),
+                                new BufferedWriter(Channels.newWriter(client, StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        // The client went away; nothing is left to answer.
+                    }
+                });
+            }
+        } catch (ClosedChannelException e) {
+            // Stopped.
+        } catch (IOException e) {
+            System.err.println("Stopped accepting clients: " + e.getMessage());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    /**
+     * Answers the commands of one client until it says {@code bye} or disconnects.
+     * <p>
+     * Responses are sent as soon as no further command is already waiting, so a client that
+     * sends many commands without waiting gets their responses in few writes.
+     *
+     * @param greg shared Greg instance
+     * @param in commands from the client, one per line
+     * @param out where the responses are written
+     * @return number of commands answered
+     * @throws IOException if a command cannot be read or a response cannot be written
+     */
+    static int handle(ConcurrentGreg greg, BufferedReader in, Writer out) throws IOException {
+        writeResponse(out, greg.getWelcomeMessage());
+        out.flush();
+
+        int count = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String input = line.trim();
+            if (input.isEmpty()) {
+                continue;
+            }
+
+            writeResponse(out, greg.getResponse(input));
+            count++;
+            if (input.equals(CommandType.BYE.getKeyword())) {
+                break;
+            }
+            if (!in.ready()) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private static void writeResponse(Writer out, String response) throws IOException {
+        int start = 0;
+        while (start <= response.length()) {
+            int end = response.indexOf('\n', start);
+            if (end < 0) {
+                end = response.length();
+            }
+            if (response.startsWith(END_OF_RESPONSE, start)) {
+                out.write(END_OF_RESPONSE);
+            }
+            out.write(response, start, end - start);
+            out.write('\n');
+            start = end + 1;
+        }
+        out.write(END_OF_RESPONSE);
+        out.write('\n');
+    }
+
+    private static ServerSocketChannel open(String socketPath, int port) throws IOException {
+        SocketAddress address;
+        ServerSocketChannel server;
+        if (socketPath != null) {
+            address = UnixDomainSocketAddress.of(socketPath);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            server = ServerSocketChannel.open();
+        }
+        try {
+            server.bind(address);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    private static void closeQuietly(ServerSocketChannel server) {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Not accepting clients either way.
+        }
+    }
+}
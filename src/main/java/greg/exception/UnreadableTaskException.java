@@ -0,0 +1,20 @@
+package greg.exception;
+
+/**
+ * Signals that a task loaded lazily from the save file cannot be read, because its line is
+ * corrupted or the file can no longer be read.
+ * <p>
+ * Unchecked, since it is only discovered when the task is first accessed through {@code List.get}.
+ */
+public class UnreadableTaskException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnreadableTaskException(String message) {
+        super(message);
+    }
+
+    public UnreadableTaskException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
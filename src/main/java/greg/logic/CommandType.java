@@ -4,14 +4,37 @@ package greg.logic;
  * Represents the supported command categories in Greg.
  */
 public enum CommandType {
-    BYE,
-    LIST,
-    MARK,
-    UNMARK,
-    DELETE,
-    TODO,
-    DEADLINE,
-    EVENT,
-    FIND,
-    HELP
-}
\ No newline at end of file
+    BYE("bye"),
+    LIST("list"),
+    MARK("mark"),
+    UNMARK("unmark"),
+    DELETE("delete"),
+    TODO("todo"),
+    DEADLINE("deadline"),
+    EVENT("event"),
+    FIND("find"),
+    SEARCH("search"),
+    DUE("due"),
+    UPCOMING("upcoming"),
+    ON("on"),
+    HELP("help"),
+    STATS("stats"),
+    VERIFY("verify"),
+    UNDO("undo"),
+    REDO("redo");
+
+    private final String keyword;
+
+    CommandType(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /**
+     * Returns the word the user types to give this command.
+     *
+     * @return command keyword, such as "deadline"
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+}
@@ -0,0 +1,120 @@
+package greg.logic;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import greg.exception.GregException;
+import greg.storage.StorageConfig;
+import greg.ui.Ui;
+
+/**
+ * Lets several threads share one {@link Greg}, e.g. one per client of a server.
+ * <p>
+ * Commands that only read the task list, such as {@code list} and {@code find}, run at the same
+ * time as each other; every other command runs alone. After each change the query indexes are
+ * built again while the change still holds the lock, so reads never have to build them.
+ * <p>
+ * {@code bye} only says goodbye: the shared instance keeps running until {@link #shutdown()}.
+ * {@code undo} and {@code redo} are refused, since the history is shared: one client's undo would
+ * revert whatever another client changed last.
+ */
+public class ConcurrentGreg {
+
+    private static final Set<CommandType> READ_ONLY = EnumSet.of(CommandType.LIST, CommandType.FIND,
+            CommandType.SEARCH, CommandType.DUE, CommandType.UPCOMING, CommandType.ON, CommandType.HELP,
+            CommandType.STATS);
+
+    private static final String ERROR_SHARED_UNDO = "Undo and redo are not available while the task list is "
+            + "shared, since they could revert another client's change.";
+
+    private final Greg greg;
+    private final Ui ui = new Ui();
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    /**
+     * Loads the task list to share.
+     *
+     * @param filePath path to the save file
+     * @param config durability and journal settings; must not load tasks lazily
+     * @throws IllegalArgumentException if {@code config.lazyLoad} is set, since reading a lazily
+     *     loaded task list changes its cache and so cannot be shared by concurrent readers
+     */
+    public ConcurrentGreg(String filePath, StorageConfig config) {
+        if (config.lazyLoad) {
+            throw new IllegalArgumentException("A shared task list cannot be loaded lazily.");
+        }
+
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.greg = new Greg(filePath, config);
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+
+        writeLock.lock();
+        try {
+            greg.prepareForReads();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public String getWelcomeMessage() {
+        return greg.getWelcomeMessage();
+    }
+
+    /**
+     * Runs a command, waiting for any command that conflicts with it to finish first.
+     *
+     * @param input the command as typed
+     * @return response to the command
+     */
+    public String getResponse(String input) {
+        ParsedCommand cmd;
+        try {
+            cmd = Parser.parse(input);
+        } catch (GregException e) {
+            return ui.getError(e.getMessage());
+        }
+
+        if (cmd.type == CommandType.BYE) {
+            return ui.getGoodbye();
+        }
+        if (cmd.type == CommandType.UNDO || cmd.type == CommandType.REDO) {
+            return ui.getError(ERROR_SHARED_UNDO);
+        }
+
+        if (READ_ONLY.contains(cmd.type)) {
+            readLock.lock();
+            try {
+                return greg.getResponse(cmd);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        writeLock.lock();
+        try {
+            String response = greg.getResponse(cmd);
+            greg.prepareForReads();
+            return response;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for running commands to finish, then writes any buffered changes to disk.
+     *
+     * @return an error message if the changes could not be saved, or an empty string
+     */
+    public String shutdown() {
+        writeLock.lock();
+        try {
+            return greg.shutdown();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package greg.logic;
 
 import greg.exception.GregException;
+import greg.exception.UnreadableTaskException;
+import greg.storage.LoadReport;
 import greg.storage.Storage;
+import greg.storage.StorageConfig;
+import greg.model.ColumnarTaskStore;
+import greg.model.DescriptionPool;
+import greg.model.RankedMatches;
 import greg.model.TaskList;
 import greg.ui.Ui;
 import greg.model.Task;
@@ -9,90 +15,187 @@ import greg.model.Event;
 import greg.model.Todo;
 import greg.model.Deadline;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Greg {
 
+    private static final int UNDO_LIMIT = 100;
+
     private final Ui ui;
     private final Storage storage;
     private final TaskList taskList;
+    private final UndoHistory history = new UndoHistory(UNDO_LIMIT);
 
     private boolean isExit = false;
+    private String loadWarning = "";
 
     public Greg(String filePath) {
+        this(filePath, new StorageConfig());
+    }
+
+    /**
+     * Creates a Greg instance whose save file is managed with the given storage settings.
+     *
+     * @param filePath path to the save file
+     * @param config durability and journal settings
+     */
+    public Greg(String filePath, StorageConfig config) {
         this.ui = new Ui();
-        this.storage = new Storage(filePath);
+        this.storage = new Storage(filePath, config);
+        if (config.internDescriptions) {
+            DescriptionPool.enable();
+        }
+
+        if (config.lazyLoad) {
+            this.taskList = loadLazily();
+            return;
+        }
 
         List<Task> loadedTasks;
         try {
-            loadedTasks = storage.loadAll();
+            loadedTasks = storage.loadAllSkippingCorrupted();
+            LoadReport report = storage.getLoadReport();
+            if (report.hasErrors()) {
+                loadWarning = ui.getLoadWarning(report);
+            }
         } catch (GregException e) {
             // In JavaFX, warnings should be returned as a message, not printed.
             loadedTasks = new ArrayList<>();
+            loadWarning = ui.getWarning("Could not load saved tasks. " + e.getMessage());
         }
 
-        this.taskList = new TaskList(loadedTasks);
+        this.taskList = config.columnarTasks
+                ? TaskList.backedBy(ColumnarTaskStore.of(loadedTasks))
+                : new TaskList(loadedTasks);
     }
 
     public String getWelcomeMessage() {
-        return ui.getWelcome();
+        if (loadWarning.isEmpty()) {
+            return ui.getWelcome();
+        }
+        return ui.getWelcome() + "\n\n" + loadWarning;
     }
 
     public boolean isExit() {
         return isExit;
     }
 
+    /**
+     * Writes any buffered changes to disk. Safe to call more than once.
+     *
+     * @return an error message if the changes could not be saved, or an empty string
+     */
+    public String shutdown() {
+        try {
+            storage.close();
+            return "";
+        } catch (GregException e) {
+            return ui.getError(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes buffered changes to disk and keeps running.
+     *
+     * @return an error message if the changes could not be saved, or an empty string
+     */
+    public String flush() {
+        try {
+            storage.flush();
+            return "";
+        } catch (GregException e) {
+            return ui.getError(e.getMessage());
+        }
+    }
+
     public String getResponse(String input) {
+        ParsedCommand cmd;
         try {
-            ParsedCommand cmd = Parser.parse(input);
+            cmd = Parser.parse(input);
+        } catch (GregException e) {
+            return ui.getError(e.getMessage());
+        }
+        return getResponse(cmd);
+    }
 
+    /**
+     * Runs a command that has already been parsed.
+     *
+     * @param cmd parsed command
+     * @return response to show the user
+     */
+    String getResponse(ParsedCommand cmd) {
+        try {
             switch (cmd.type) {
                 case BYE:
-                    storage.saveAll(taskList.getAll());
+                    storage.close();
                     isExit = true;
                     return ui.getGoodbye();
 
                 case LIST:
-                    return ui.getTaskList(taskList.getAll());
+                    return ui.getTaskListPage(taskList.getAll(), cmd.index, cmd.count);
 
                 case MARK: {
-                    Task task = taskList.mark(cmd.index);
-                    storage.saveAll(taskList.getAll());
+                    if (cmd.isBatch()) {
+                        return markAll(cmd, true);
+                    }
+                    int taskNumber = toTaskNumber(cmd);
+                    TaskChange change = markChange(new int[] {taskNumber}, true);
+                    Task task = taskList.mark(taskNumber);
+                    storage.appendMark(taskNumber, true);
+                    record(change);
                     return ui.getTaskMarked(task);
                 }
 
                 case UNMARK: {
-                    Task task = taskList.unmark(cmd.index);
-                    storage.saveAll(taskList.getAll());
+                    if (cmd.isBatch()) {
+                        return markAll(cmd, false);
+                    }
+                    int taskNumber = toTaskNumber(cmd);
+                    TaskChange change = markChange(new int[] {taskNumber}, false);
+                    Task task = taskList.unmark(taskNumber);
+                    storage.appendMark(taskNumber, false);
+                    record(change);
                     return ui.getTaskUnmarked(task);
                 }
 
                 case DELETE: {
-                    Task task = taskList.delete(cmd.index);
-                    storage.saveAll(taskList.getAll());
+                    if (cmd.isBatch()) {
+                        return deleteAll(cmd);
+                    }
+                    int taskNumber = toTaskNumber(cmd);
+                    Task task = taskList.delete(taskNumber);
+                    storage.appendDelete(taskNumber);
+                    record(TaskChange.deleted(new int[] {taskNumber}, List.of(task)));
                     return ui.getTaskDeleted(task, taskList.size());
                 }
 
                 case TODO: {
                     Task task = new Todo(cmd.description);
                     taskList.add(task);
-                    storage.saveAll(taskList.getAll());
+                    storage.appendAdd(task);
+                    record(TaskChange.added(taskList.size(), task));
                     return ui.getTaskAdded(task, taskList.size());
                 }
 
                 case DEADLINE: {
                     Task task = new Deadline(cmd.description, cmd.byRaw);
                     taskList.add(task);
-                    storage.saveAll(taskList.getAll());
+                    storage.appendAdd(task);
+                    record(TaskChange.added(taskList.size(), task));
                     return ui.getTaskAdded(task, taskList.size());
                 }
 
                 case EVENT: {
-                    Task task = new Event(cmd.description, cmd.fromRaw, cmd.toRaw);
+                    Event task = new Event(cmd.description, cmd.fromRaw, cmd.toRaw);
+                    List<Task> clashes = taskList.findClashes(task);
                     taskList.add(task);
-                    storage.saveAll(taskList.getAll());
-                    return ui.getTaskAdded(task, taskList.size());
+                    storage.appendAdd(task);
+                    record(TaskChange.added(taskList.size(), task));
+                    return ui.getEventAdded(task, taskList.size(), clashes);
                 }
 
                 case FIND: {
@@ -100,16 +203,146 @@ public class Greg {
                     return ui.getFindResults(matches);
                 }
 
+                case SEARCH: {
+                    RankedMatches matches = taskList.findTop(cmd.description, cmd.count);
+                    return ui.getRankedResults(matches);
+                }
+
+                case DUE: {
+                    List<Task> due = taskList.findDue(cmd.fromDate, cmd.toDate);
+                    return ui.getDueResults(due, cmd.fromDate, cmd.toDate);
+                }
+
+                case UPCOMING: {
+                    List<Task> upcoming = taskList.findUpcoming(LocalDateTime.now(), cmd.count);
+                    return ui.getUpcomingResults(upcoming);
+                }
+
+                case ON: {
+                    List<Task> events = taskList.findEventsOn(cmd.fromDate);
+                    List<Task> deadlines = taskList.findDue(cmd.fromDate, cmd.fromDate);
+                    return ui.getScheduleOn(cmd.fromDate, events, deadlines);
+                }
+
                 case HELP: {
                     return ui.getHelp();
                 }
 
+                case STATS: {
+                    return ui.getStats(storage.getCompactionStats(), DescriptionPool.getStats());
+                }
+
+                case VERIFY: {
+                    return ui.getVerifyResult(storage.verify());
+                }
+
+                case UNDO: {
+                    TaskChange change = history.nextUndo();
+                    if (change == null) {
+                        return ui.getNothingToUndo();
+                    }
+                    change.undo(taskList);
+                    history.undone();
+                    change.journalUndo(storage);
+                    return ui.getUndone(change.describe(), taskList.size());
+                }
+
+                case REDO: {
+                    TaskChange change = history.nextRedo();
+                    if (change == null) {
+                        return ui.getNothingToRedo();
+                    }
+                    change.redo(taskList);
+                    history.redone();
+                    change.journalRedo(storage);
+                    return ui.getRedone(change.describe(), taskList.size());
+                }
+
                 default:
                     throw new GregException("Unknown command.");
             }
 
-        } catch (GregException e) {
+        } catch (GregException | UnreadableTaskException e) {
             return ui.getError(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the task list's query indexes ahead of time, so that commands which only read the
+     * list do not change anything until the next command that does.
+     */
+    void prepareForReads() {
+        taskList.buildIndexes();
+    }
+
+    /**
+     * Marks or unmarks a batch of tasks, journaling the batch as a single record.
+     */
+    private String markAll(ParsedCommand cmd, boolean isDone) throws GregException {
+        int[] taskNumbers = cmd.isAllDone ? taskList.getDoneTaskNumbers() : cmd.toTaskNumbers(taskList.size());
+        TaskChange change = markChange(taskNumbers, isDone);
+        List<Task> tasks = taskList.markAll(taskNumbers, isDone);
+        storage.appendMark(taskNumbers, isDone);
+        record(change);
+        return ui.getTasksMarked(tasks, isDone);
+    }
+
+    /**
+     * Deletes a batch of tasks, journaling the batch as a single record.
+     */
+    private String deleteAll(ParsedCommand cmd) throws GregException {
+        int[] taskNumbers = cmd.isAllDone ? taskList.getDoneTaskNumbers() : cmd.toTaskNumbers(taskList.size());
+        List<Task> tasks = taskList.deleteAll(taskNumbers);
+        storage.appendDelete(taskNumbers);
+        if (!tasks.isEmpty()) {
+            record(TaskChange.deleted(taskNumbers, tasks));
+        }
+        return ui.getTasksDeleted(tasks, taskList.size());
+    }
+
+    /**
+     * Returns the change of marking or unmarking tasks, covering only the tasks whose status
+     * would actually change, so undoing it leaves the others as they were.
+     *
+     * @return the change, or null if no task would change
+     * @throws GregException if any task number is invalid
+     */
+    private TaskChange markChange(int[] taskNumbers, boolean isDone) throws GregException {
+        int[] changed = new int[taskNumbers.length];
+        List<Task> tasks = new ArrayList<>();
+        for (int taskNumber : taskNumbers) {
+            Task task = taskList.get(taskNumber);
+            if (task.isMarked() != isDone) {
+                changed[tasks.size()] = taskNumber;
+                tasks.add(task);
+            }
+        }
+        return tasks.isEmpty() ? null : TaskChange.marked(Arrays.copyOf(changed, tasks.size()), tasks, isDone);
+    }
+
+    private void record(TaskChange change) {
+        if (change != null) {
+            history.record(change);
+        }
+    }
+
+    /**
+     * Returns the task number a command refers to; the journal records task numbers, not IDs.
+     */
+    private int toTaskNumber(ParsedCommand cmd) throws GregException {
+        return cmd.isTaskId ? taskList.toTaskNumber(cmd.index) : cmd.index;
+    }
+
+    private TaskList loadLazily() {
+        try {
+            TaskList tasks = TaskList.backedBy(storage.loadLazily());
+            if (storage.getLoadReport().hasErrors()) {
+                loadWarning = ui.getLoadWarning(storage.getLoadReport());
+            }
+            return tasks;
+        } catch (GregException | UnreadableTaskException e) {
+            loadWarning = ui.getWarning("Could not load saved tasks. " + e.getMessage());
+            return new TaskList();
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package greg.logic;
 
+import java.time.LocalDate;
+
+import greg.exception.GregException;
+
 /**
  * A structured representation of a user command after parsing.
  * <p>
  * Fields are populated depending on the {@link CommandType}. For example:
- * MARK/UNMARK/DELETE uses {@code index}, TODO uses {@code description},
- * DEADLINE uses {@code description} + {@code byRaw}, EVENT uses {@code description} + {@code fromRaw} + {@code toRaw}.
+ * MARK/UNMARK/DELETE uses {@code index} + {@code isTaskId}, or {@code ranges}/{@code isAllDone} for batches, TODO uses {@code description},
+ * DEADLINE uses {@code description} + {@code byRaw}, EVENT uses {@code description} + {@code fromRaw} + {@code toRaw},
+ * DUE uses {@code fromDate} + {@code toDate}, UPCOMING uses {@code count}, ON uses {@code fromDate},
+ * SEARCH uses {@code description} + {@code count}, LIST uses {@code index} (page) + {@code count} (page size).
  */
 public class ParsedCommand {
     public CommandType type;
 
-    // for mark / unmark / delete
+    // for mark / unmark / delete; the page for list
     public int index;
+    // true if index is a task's session handle ("mark #7") rather than a task number
+    public boolean isTaskId;
+    // for batches: ascending, merged first/last pairs ("delete 10-500", "mark 1,4,9"), or every done task
+    public int[] ranges;
+    public boolean isAllDone;
 
     // for todo / deadline / event
     public String description;
@@ -19,7 +30,48 @@ public class ParsedCommand {
     public String fromRaw;
     public String toRaw;
 
+    // for due / upcoming / on / search / list
+    public LocalDate fromDate;
+    public LocalDate toDate;
+    public int count;
+
     public ParsedCommand(CommandType type) {
         this.type = type;
     }
+
+    /**
+     * Returns whether a mark/unmark/delete command refers to several tasks at once.
+     *
+     * @return true for a range, a list, or "done"
+     */
+    public boolean isBatch() {
+        return ranges != null || isAllDone;
+    }
+
+    /**
+     * Expands the ranges of a batch into the task numbers they cover, after checking that every
+     * one of them is in a list of {@code taskCount} tasks.
+     *
+     * @param taskCount number of tasks in the list
+     * @return ascending, distinct task numbers
+     * @throws GregException if a range goes past the end of the list
+     */
+    public int[] toTaskNumbers(int taskCount) throws GregException {
+        if (ranges[ranges.length - 1] > taskCount) {
+            throw new GregException("Invalid task number.");
+        }
+
+        int total = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            total += ranges[i + 1] - ranges[i] + 1;
+        }
+        int[] numbers = new int[total];
+        int count = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int n = ranges[i]; n <= ranges[i + 1]; n++) {
+                numbers[count++] = n;
+            }
+        }
+        return numbers;
+    }
 }
\ No newline at end of file
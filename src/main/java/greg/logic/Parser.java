@@ -1,5 +1,13 @@
 package greg.logic;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 import greg.exception.GregException;
 
 /**
@@ -7,9 +15,56 @@ import greg.exception.GregException;
  * <p>
  * Converts strings such as "todo ...", "deadline ... /by ...", "mark 2" into
  * {@link ParsedCommand} objects for downstream execution.
+ * <p>
+ * The keyword is read once and looked up among the {@link CommandType} keywords, and the
+ * command's fields are then extracted by scanning the input in place: no regular expressions
+ * are compiled and no intermediate arrays of words are created.
  */
 public class Parser {
 
+    private static final String ERROR_INVALID_COMMAND = "Invalid command.";
+    private static final String ERROR_DEADLINE_FORMAT = "Invalid deadline format. Use: deadline <desc> /by yyyy-mm-dd [HHmm]";
+    private static final String ERROR_EVENT_FORMAT = "Invalid event format. Use: event <desc> /from yyyy-mm-dd [HHmm] /to yyyy-mm-dd [HHmm]";
+    private static final String ERROR_DUE_FORMAT = "Invalid due format. Use: due yyyy-mm-dd yyyy-mm-dd";
+    private static final String ERROR_INVALID_TASK_NUMBER = "Invalid task number.";
+    private static final String ERROR_INVALID_TASK_RANGE = "Invalid task numbers. Use a number, a range such as 10-500, "
+            + "a list such as 1,4,9, or done.";
+    private static final String ERROR_SEARCH_FORMAT = "Invalid search format. Use: search <keywords> [/top <number of results>]";
+    private static final int DEFAULT_SEARCH_RESULTS = 10;
+    private static final int MAX_SEARCH_RESULTS = 10_000;
+    private static final String ERROR_LIST_FORMAT = "Invalid list format. Use: list [page] [--page-size <n>]";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String ERROR_UPCOMING_FORMAT = "Invalid upcoming format. Use: upcoming <number of deadlines>";
+
+    private static final String PAGE_SIZE_OPTION = "--page-size";
+
+    private static final CommandType[] TYPES = CommandType.values();
+    private static final Set<CommandType> NO_ARGUMENTS = EnumSet.of(CommandType.BYE, CommandType.STATS,
+            CommandType.VERIFY, CommandType.UNDO, CommandType.REDO);
+    private static final Set<CommandType> OPTIONAL_ARGUMENTS = EnumSet.of(CommandType.LIST, CommandType.HELP);
+    private static final Map<CommandType, CommandParser> PARSERS = new EnumMap<>(CommandType.class);
+
+    static {
+        PARSERS.put(CommandType.BYE, (input, from) -> new ParsedCommand(CommandType.BYE));
+        PARSERS.put(CommandType.LIST, Parser::parseList);
+        PARSERS.put(CommandType.MARK, (input, from) -> parseTaskReference(input, from, CommandType.MARK));
+        PARSERS.put(CommandType.UNMARK, (input, from) -> parseTaskReference(input, from, CommandType.UNMARK));
+        PARSERS.put(CommandType.DELETE, (input, from) -> parseTaskReference(input, from, CommandType.DELETE));
+        PARSERS.put(CommandType.TODO, Parser::parseTodo);
+        PARSERS.put(CommandType.DEADLINE, Parser::parseDeadline);
+        PARSERS.put(CommandType.EVENT, Parser::parseEvent);
+        PARSERS.put(CommandType.FIND, Parser::parseFind);
+        PARSERS.put(CommandType.SEARCH, Parser::parseSearch);
+        PARSERS.put(CommandType.DUE, Parser::parseDue);
+        PARSERS.put(CommandType.UPCOMING, Parser::parseUpcoming);
+        PARSERS.put(CommandType.ON, Parser::parseOn);
+        PARSERS.put(CommandType.HELP, (input, from) -> new ParsedCommand(CommandType.HELP));
+        PARSERS.put(CommandType.STATS, (input, from) -> new ParsedCommand(CommandType.STATS));
+        PARSERS.put(CommandType.VERIFY, (input, from) -> new ParsedCommand(CommandType.VERIFY));
+        PARSERS.put(CommandType.UNDO, (input, from) -> new ParsedCommand(CommandType.UNDO));
+        PARSERS.put(CommandType.REDO, (input, from) -> new ParsedCommand(CommandType.REDO));
+    }
+
     /**
      * Parses a raw input line into a {@link ParsedCommand}.
      *
@@ -18,102 +73,351 @@ public class Parser {
      * @throws GregException If the input is not a valid command or is missing required parts.
      */
     public static ParsedCommand parse(String input) throws GregException {
+        int keywordEnd = input.indexOf(' ');
+        boolean hasArguments = keywordEnd >= 0;
+        if (!hasArguments) {
+            keywordEnd = input.length();
+        }
 
-        if (input.equals("bye")) {
-            return new ParsedCommand(CommandType.BYE);
+        CommandType type = findType(input, keywordEnd);
+        if (type == null && input.startsWith(CommandType.HELP.getKeyword())) {
+            // Anything starting with "help", such as "helpme", asks for help.
+            type = CommandType.HELP;
+        }
+        if (type == null
+                || hasArguments && NO_ARGUMENTS.contains(type)
+                || !hasArguments && !NO_ARGUMENTS.contains(type) && !OPTIONAL_ARGUMENTS.contains(type)) {
+            throw new GregException(ERROR_INVALID_COMMAND);
         }
+        return PARSERS.get(type).parse(input, keywordEnd);
+    }
 
-        if (input.equals("list")) {
-            return new ParsedCommand(CommandType.LIST);
+    /**
+     * Returns the command whose keyword is {@code input[0, keywordEnd)}.
+     *
+     * @return the command type, or null if the word is not a keyword
+     */
+    private static CommandType findType(String input, int keywordEnd) {
+        for (CommandType type : TYPES) {
+            String keyword = type.getKeyword();
+            if (keyword.length() == keywordEnd && input.startsWith(keyword)) {
+                return type;
+            }
         }
+        return null;
+    }
 
-        if (input.startsWith("mark ")) {
-            ParsedCommand cmd = new ParsedCommand(CommandType.MARK);
-            cmd.index = parseIndex(input);
-            return cmd;
+    private static ParsedCommand parseTodo(String input, int from) {
+        ParsedCommand cmd = new ParsedCommand(CommandType.TODO);
+        cmd.description = trimmed(input, from, input.length());
+        return cmd;
+    }
+
+    private static ParsedCommand parseDeadline(String input, int from) throws GregException {
+        int by = input.indexOf("/by", from);
+        if (by < 0) {
+            throw new GregException(ERROR_DEADLINE_FORMAT);
         }
 
-        if (input.startsWith("unmark ")) {
-            ParsedCommand cmd = new ParsedCommand(CommandType.UNMARK);
-            cmd.index = parseIndex(input);
-            return cmd;
+        ParsedCommand cmd = new ParsedCommand(CommandType.DEADLINE);
+        cmd.description = trimmed(input, from, by);
+        cmd.byRaw = trimmed(input, by + "/by".length(), input.length());
+        return cmd;
+    }
+
+    private static ParsedCommand parseEvent(String input, int from) throws GregException {
+        int fromMarker = input.indexOf("/from", from);
+        if (fromMarker < 0) {
+            throw new GregException(ERROR_EVENT_FORMAT);
+        }
+        int toMarker = input.indexOf("/to", fromMarker + "/from".length());
+        if (toMarker < 0) {
+            throw new GregException(ERROR_EVENT_FORMAT);
         }
 
-        if (input.startsWith("delete ")) {
-            ParsedCommand cmd = new ParsedCommand(CommandType.DELETE);
-            cmd.index = parseIndex(input);
-            return cmd;
+        ParsedCommand cmd = new ParsedCommand(CommandType.EVENT);
+        cmd.description = trimmed(input, from, fromMarker);
+        cmd.fromRaw = trimmed(input, fromMarker + "/from".length(), toMarker);
+        cmd.toRaw = trimmed(input, toMarker + "/to".length(), input.length());
+        return cmd;
+    }
+
+    private static ParsedCommand parseFind(String input, int from) throws GregException {
+        String query = trimmed(input, from, input.length());
+        if (query.isEmpty()) {
+            throw new GregException("Find command must have a search term.");
         }
+        ParsedCommand cmd = new ParsedCommand(CommandType.FIND);
+        cmd.description = query;   // reuse description field
+        return cmd;
+    }
 
-        if (input.startsWith("todo ")) {
-            ParsedCommand cmd = new ParsedCommand(CommandType.TODO);
-            cmd.description = input.substring(5).trim();
-            return cmd;
+    private static ParsedCommand parseSearch(String input, int from) throws GregException {
+        int top = input.indexOf("/top", from);
+        ParsedCommand cmd = new ParsedCommand(CommandType.SEARCH);
+        cmd.description = trimmed(input, from, top < 0 ? input.length() : top);
+        cmd.count = DEFAULT_SEARCH_RESULTS;
+        if (top >= 0) {
+            try {
+                cmd.count = parseTrimmedInt(input, top + "/top".length(), input.length());
+            } catch (NumberFormatException e) {
+                throw new GregException(ERROR_SEARCH_FORMAT);
+            }
+        }
+        if (cmd.description.isEmpty() || cmd.count <= 0) {
+            throw new GregException(ERROR_SEARCH_FORMAT);
+        }
+        if (cmd.count > MAX_SEARCH_RESULTS) {
+            throw new GregException("Search can show at most " + MAX_SEARCH_RESULTS + " results.");
         }
+        return cmd;
+    }
 
-        if (input.startsWith("deadline ")) {
-            String rest = input.substring(9).trim();
-            String[] parts = rest.split("/by", 2);
+    /**
+     * Parses "due" followed by exactly two dates.
+     */
+    private static ParsedCommand parseDue(String input, int from) throws GregException {
+        int start = trimStart(input, from, input.length());
+        int end = trimEnd(input, start, input.length());
+        int firstEnd = tokenEnd(input, start, end);
+        int secondStart = skipSpaces(input, firstEnd, end);
+        int secondEnd = tokenEnd(input, secondStart, end);
+        if (start == end || secondStart == end || secondEnd != end) {
+            throw new GregException(ERROR_DUE_FORMAT);
+        }
 
-            if (parts.length < 2) {
-                throw new GregException("Invalid deadline format. Use: deadline <desc> /by yyyy-mm-dd [HHmm]");
-            }
+        ParsedCommand cmd = new ParsedCommand(CommandType.DUE);
+        try {
+            cmd.fromDate = LocalDate.parse(input.substring(start, firstEnd));
+            cmd.toDate = LocalDate.parse(input.substring(secondStart, secondEnd));
+        } catch (DateTimeParseException e) {
+            throw new GregException(ERROR_DUE_FORMAT);
+        }
+        if (cmd.fromDate.isAfter(cmd.toDate)) {
+            throw new GregException("The first date of a due range cannot be after the second.");
+        }
+        return cmd;
+    }
 
-            ParsedCommand cmd = new ParsedCommand(CommandType.DEADLINE);
-            cmd.description = parts[0].trim();
-            cmd.byRaw = parts[1].trim();
-            return cmd;
+    private static ParsedCommand parseUpcoming(String input, int from) throws GregException {
+        ParsedCommand cmd = new ParsedCommand(CommandType.UPCOMING);
+        try {
+            cmd.count = parseTrimmedInt(input, from, input.length());
+        } catch (NumberFormatException e) {
+            throw new GregException(ERROR_UPCOMING_FORMAT);
+        }
+        if (cmd.count <= 0) {
+            throw new GregException(ERROR_UPCOMING_FORMAT);
         }
+        return cmd;
+    }
 
-        if (input.startsWith("event ")) {
-            String rest = input.substring(6).trim();
-            String[] fromSplit = rest.split("/from", 2);
+    private static ParsedCommand parseOn(String input, int from) throws GregException {
+        ParsedCommand cmd = new ParsedCommand(CommandType.ON);
+        try {
+            cmd.fromDate = LocalDate.parse(trimmed(input, from, input.length()));
+        } catch (DateTimeParseException e) {
+            throw new GregException("Invalid on format. Use: on yyyy-mm-dd");
+        }
+        return cmd;
+    }
 
-            if (fromSplit.length < 2) {
-                throw new GregException("Invalid event format. Use: event <desc> /from yyyy-mm-dd [HHmm] /to yyyy-mm-dd [HHmm]");
-            }
+    /**
+     * Parses "list", "list 3", "list --page-size 200" or both options together.
+     *
+     * @param input Raw input string starting with "list".
+     * @param from Index just after the keyword.
+     * @return LIST command with the page in {@code index} and the page size in {@code count}.
+     * @throws GregException If an option is unknown or a number is not positive.
+     */
+    private static ParsedCommand parseList(String input, int from) throws GregException {
+        ParsedCommand cmd = new ParsedCommand(CommandType.LIST);
+        cmd.index = 1;
+        cmd.count = DEFAULT_PAGE_SIZE;
 
-            String[] toSplit = fromSplit[1].trim().split("/to", 2);
-            if (toSplit.length < 2) {
-                throw new GregException("Invalid event format. Use: event <desc> /from yyyy-mm-dd [HHmm] /to yyyy-mm-dd [HHmm]");
+        int start = trimStart(input, from, input.length());
+        int end = trimEnd(input, start, input.length());
+        try {
+            while (start < end) {
+                int wordEnd = tokenEnd(input, start, end);
+                int next = skipSpaces(input, wordEnd, end);
+                boolean isPageSize = wordEnd - start == PAGE_SIZE_OPTION.length()
+                        && input.startsWith(PAGE_SIZE_OPTION, start);
+                if (isPageSize && next < end) {
+                    int valueEnd = tokenEnd(input, next, end);
+                    cmd.count = Integer.parseInt(input, next, valueEnd, 10);
+                    next = skipSpaces(input, valueEnd, end);
+                } else {
+                    cmd.index = Integer.parseInt(input, start, wordEnd, 10);
+                }
+                start = next;
             }
-
-            ParsedCommand cmd = new ParsedCommand(CommandType.EVENT);
-            cmd.description = fromSplit[0].trim();
-            cmd.fromRaw = toSplit[0].trim();
-            cmd.toRaw = toSplit[1].trim();
-            return cmd;
+        } catch (NumberFormatException e) {
+            throw new GregException(ERROR_LIST_FORMAT);
         }
 
-        if (input.startsWith("find ")) {
-            String query = input.substring(5).trim();
-            if (query.isEmpty()) {
-                throw new GregException("Find command must have a search term.");
-            }
-            ParsedCommand cmd = new ParsedCommand(CommandType.FIND);
-            cmd.description = query;   // reuse description field
-            return cmd;
+        if (cmd.index <= 0 || cmd.count <= 0) {
+            throw new GregException(ERROR_LIST_FORMAT);
         }
+        return cmd;
+    }
 
-        if (input.startsWith("help")) {
-            return new ParsedCommand(CommandType.HELP);
+    /**
+     * Extracts the tasks referred to by commands like "mark 2", "delete #17", "delete 10-500",
+     * "mark 1,4,9" or "delete done".
+     * <p>
+     * A single task is a 1-indexed task number, or a task's session handle (its ID) prefixed with {@code #}, and is
+     * stored in {@code index}. Ranges and comma-separated lists of task numbers are stored in
+     * {@code ranges}, sorted and merged; "done" sets {@code isAllDone}. Ranges are not expanded
+     * here, so a huge range costs nothing until it is checked against the list.
+     *
+     * @param input Raw input string.
+     * @param from Index just after the keyword.
+     * @param type MARK, UNMARK or DELETE.
+     * @return Command with its task fields set.
+     * @throws GregException If the reference is missing or not valid.
+     */
+    private static ParsedCommand parseTaskReference(String input, int from, CommandType type)
+            throws GregException {
+        int start = skipSpaces(input, from, input.length());
+        int end = tokenEnd(input, start, input.length());
+        if (start == end) {
+            throw new GregException(ERROR_INVALID_TASK_NUMBER);
         }
 
-        throw new GregException("Invalid command.");
+        ParsedCommand cmd = new ParsedCommand(type);
+        if (end - start == 4 && input.startsWith("done", start)) {
+            cmd.isAllDone = true;
+        } else if (indexOf(input, ',', start, end) >= 0 || indexOf(input, '-', start, end) >= 0) {
+            cmd.ranges = parseTaskRanges(input, start, end);
+        } else {
+            try {
+                cmd.isTaskId = input.charAt(start) == '#';
+                cmd.index = Integer.parseInt(input, cmd.isTaskId ? start + 1 : start, end, 10);
+            } catch (NumberFormatException e) {
+                throw new GregException(ERROR_INVALID_TASK_NUMBER);
+            }
+        }
+        return cmd;
     }
 
     /**
-     * Extracts a 1-indexed task number from commands like "mark 2" or "delete 3".
+     * Parses a list of task numbers and ranges such as "1-3,8" in {@code input[start, end)}.
+     * Trailing commas are ignored, but at least one number is required.
      *
-     * @param input Raw input string.
-     * @return Parsed task number (still 1-indexed).
-     * @throws GregException If the task number is missing or not a valid integer.
+     * @return Ascending, non-overlapping inclusive ranges as first/last pairs, e.g. {1, 3, 8, 8}.
+     * @throws GregException If a number or range is not valid.
      */
-    private static int parseIndex(String input) throws GregException {
+    private static int[] parseTaskRanges(String input, int start, int end) throws GregException {
+        while (end > start && input.charAt(end - 1) == ',') {
+            end--;
+        }
+        if (end == start) {
+            throw new GregException(ERROR_INVALID_TASK_RANGE);
+        }
+
+        // At most one range per comma-separated part, so this is bounded by the input length.
+        long[] ranges = new long[8];
+        int count = 0;
         try {
-            return Integer.parseInt(input.split("\\s+")[1]);
-        } catch (Exception e) {
-            throw new GregException("Invalid task number.");
+            for (int partStart = start; partStart < end; ) {
+                int partEnd = indexOf(input, ',', partStart, end);
+                partEnd = partEnd < 0 ? end : partEnd;
+                int dash = indexOf(input, '-', partStart, partEnd);
+                if (dash >= 0 && indexOf(input, '-', dash + 1, partEnd) >= 0) {
+                    throw new GregException(ERROR_INVALID_TASK_RANGE);
+                }
+
+                int first = Integer.parseInt(input, partStart, dash < 0 ? partEnd : dash, 10);
+                int last = dash < 0 ? first : Integer.parseInt(input, dash + 1, partEnd, 10);
+                if (first <= 0 || last < first) {
+                    throw new GregException(ERROR_INVALID_TASK_RANGE);
+                }
+                if (count == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, count * 2);
+                }
+                // Packed so that sorting orders ranges by their first task number.
+                ranges[count++] = (long) first << 32 | last;
+                partStart = partEnd + 1;
+            }
+        } catch (NumberFormatException e) {
+            throw new GregException(ERROR_INVALID_TASK_RANGE);
+        }
+
+        Arrays.sort(ranges, 0, count);
+        int[] merged = new int[2 * count];
+        int mergedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int first = (int) (ranges[i] >>> 32);
+            int last = (int) ranges[i];
+            if (mergedCount > 0 && first <= merged[mergedCount - 1] + 1L) {
+                merged[mergedCount - 1] = Math.max(merged[mergedCount - 1], last);
+            } else {
+                merged[mergedCount++] = first;
+                merged[mergedCount++] = last;
+            }
+        }
+        return Arrays.copyOf(merged, mergedCount);
+    }
+
+    /**
+     * Returns {@code input[from, to)} without leading and trailing whitespace, as {@link String#trim()}.
+     */
+    private static String trimmed(String input, int from, int to) {
+        int start = trimStart(input, from, to);
+        return input.substring(start, trimEnd(input, start, to));
+    }
+
+    private static int parseTrimmedInt(String input, int from, int to) {
+        int start = trimStart(input, from, to);
+        return Integer.parseInt(input, start, trimEnd(input, start, to), 10);
+    }
+
+    private static int trimStart(String input, int from, int to) {
+        while (from < to && input.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String input, int from, int to) {
+        while (to > from && input.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private static int skipSpaces(String input, int from, int to) {
+        while (from < to && isSpace(input.charAt(from))) {
+            from++;
         }
+        return from;
+    }
+
+    private static int tokenEnd(String input, int from, int to) {
+        while (from < to && !isSpace(input.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int indexOf(String input, char c, int from, int to) {
+        int index = input.indexOf(c, from);
+        return index < to ? index : -1;
+    }
+
+    /**
+     * Returns whether {@code c} separates words, matching the regular expression {@code \s}.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Extracts the fields of one command from the input following its keyword.
+     */
+    @FunctionalInterface
+    private interface CommandParser {
+        ParsedCommand parse(String input, int from) throws GregException;
     }
-}
\ No newline at end of file
+}
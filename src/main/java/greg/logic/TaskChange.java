@@ -0,0 +1,174 @@
+package greg.logic;
+
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Task;
+import greg.model.TaskList;
+import greg.storage.Storage;
+
+/**
+ * A change one command made to the task list, kept so that it can be undone and redone.
+ * <p>
+ * Only what is needed to invert the change is kept: the numbers of the affected tasks and the
+ * tasks themselves, never a copy of the list. Undoing and redoing are journaled like any other
+ * change, so each costs one small write rather than a rewrite of the save file.
+ * <p>
+ * Changes must be undone in the reverse order they were made, and redone in the order they were
+ * undone, so that the task numbers they recorded still refer to the same tasks.
+ */
+class TaskChange {
+
+    private enum Kind {
+        ADD,
+        MARK,
+        DELETE
+    }
+
+    private final Kind kind;
+    // ascending task numbers of the affected tasks, as when the change was made
+    private final int[] taskNumbers;
+    // the affected tasks, in the same order
+    private final List<Task> tasks;
+    // new completion status, for MARK
+    private final boolean isDone;
+
+    private TaskChange(Kind kind, int[] taskNumbers, List<Task> tasks, boolean isDone) {
+        this.kind = kind;
+        this.taskNumbers = taskNumbers;
+        this.tasks = tasks;
+        this.isDone = isDone;
+    }
+
+    /**
+     * Returns the change of a task being added to the end of the list.
+     *
+     * @param taskNumber task number of the added task
+     * @param task added task
+     */
+    static TaskChange added(int taskNumber, Task task) {
+        return new TaskChange(Kind.ADD, new int[] {taskNumber}, List.of(task), false);
+    }
+
+    /**
+     * Returns the change of tasks being marked or unmarked.
+     *
+     * @param taskNumbers ascending task numbers of the tasks whose status changed
+     * @param tasks those tasks
+     * @param isDone new completion status
+     */
+    static TaskChange marked(int[] taskNumbers, List<Task> tasks, boolean isDone) {
+        return new TaskChange(Kind.MARK, taskNumbers, tasks, isDone);
+    }
+
+    /**
+     * Returns the change of tasks being deleted.
+     *
+     * @param taskNumbers ascending task numbers of the tasks, as before the deletion
+     * @param tasks deleted tasks
+     */
+    static TaskChange deleted(int[] taskNumbers, List<Task> tasks) {
+        return new TaskChange(Kind.DELETE, taskNumbers, tasks, false);
+    }
+
+    /**
+     * Reverts the change in the task list.
+     *
+     * @throws GregException if the change no longer applies; then the list is unchanged
+     */
+    void undo(TaskList taskList) throws GregException {
+        switch (kind) {
+            case ADD:
+                taskList.delete(taskNumbers[0]);
+                break;
+
+            case MARK:
+                taskList.markAll(taskNumbers, !isDone);
+                break;
+
+            default:
+                taskList.restoreAll(tasks);
+        }
+    }
+
+    /**
+     * Journals the reverting of the change, after {@link #undo(TaskList)} succeeded.
+     *
+     * @throws GregException if the reverting change cannot be journaled
+     */
+    void journalUndo(Storage storage) throws GregException {
+        switch (kind) {
+            case ADD:
+                storage.appendDelete(taskNumbers[0]);
+                break;
+
+            case MARK:
+                storage.appendMark(taskNumbers, !isDone);
+                break;
+
+            default:
+                storage.appendInsert(taskNumbers, tasks);
+        }
+    }
+
+    /**
+     * Makes the change in the task list again after it was undone.
+     *
+     * @throws GregException if the change no longer applies; then the list is unchanged
+     */
+    void redo(TaskList taskList) throws GregException {
+        switch (kind) {
+            case ADD:
+                taskList.add(tasks.get(0));
+                break;
+
+            case MARK:
+                taskList.markAll(taskNumbers, isDone);
+                break;
+
+            default:
+                taskList.deleteAll(taskNumbers);
+        }
+    }
+
+    /**
+     * Journals the change being made again, after {@link #redo(TaskList)} succeeded.
+     *
+     * @throws GregException if the change cannot be journaled
+     */
+    void journalRedo(Storage storage) throws GregException {
+        switch (kind) {
+            case ADD:
+                storage.appendAdd(tasks.get(0));
+                break;
+
+            case MARK:
+                storage.appendMark(taskNumbers, isDone);
+                break;
+
+            default:
+                storage.appendDelete(taskNumbers);
+        }
+    }
+
+    /**
+     * Describes the command that made the change, such as "delete [T][ ] read book" or
+     * "mark 3 tasks".
+     *
+     * @return short description
+     */
+    String describe() {
+        String command;
+        switch (kind) {
+            case ADD:
+                command = "add";
+                break;
+            case MARK:
+                command = isDone ? "mark" : "unmark";
+                break;
+            default:
+                command = "delete";
+        }
+        return command + " " + (tasks.size() == 1 ? tasks.get(0) : tasks.size() + " tasks");
+    }
+}
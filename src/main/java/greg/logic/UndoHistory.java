@@ -0,0 +1,86 @@
+package greg.logic;
+
+/**
+ * The most recent changes to the task list, for undo and redo.
+ * <p>
+ * Changes are kept in a ring buffer, so the history takes bounded memory and every operation is
+ * O(1): once it is full, recording a change forgets the oldest one. Recording a change also
+ * forgets the changes that were undone and could still have been redone.
+ */
+class UndoHistory {
+
+    private final TaskChange[] changes;
+    // index of the oldest change
+    private int oldest;
+    // number of changes that can be undone, starting from the oldest
+    private int undoable;
+    // number of undone changes after those that can be redone
+    private int redoable;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param capacity maximum number of changes to keep (positive)
+     */
+    UndoHistory(int capacity) {
+        this.changes = new TaskChange[capacity];
+    }
+
+    /**
+     * Records a change that has just been made.
+     *
+     * @param change the change
+     */
+    void record(TaskChange change) {
+        for (; redoable > 0; redoable--) {
+            changes[indexOf(undoable + redoable - 1)] = null;
+        }
+
+        changes[indexOf(undoable)] = change;
+        if (undoable == changes.length) {
+            oldest = indexOf(1);
+        } else {
+            undoable++;
+        }
+    }
+
+    /**
+     * Returns the latest change that has not been undone. The history only moves once
+     * {@link #undone()} confirms that undoing it succeeded, so a failed undo can be retried.
+     *
+     * @return the change to undo, or null if there is none
+     */
+    TaskChange nextUndo() {
+        return undoable == 0 ? null : changes[indexOf(undoable - 1)];
+    }
+
+    /**
+     * Moves the change returned by {@link #nextUndo()} to the redo side.
+     */
+    void undone() {
+        undoable--;
+        redoable++;
+    }
+
+    /**
+     * Returns the change undone last. The history only moves once {@link #redone()} confirms
+     * that redoing it succeeded.
+     *
+     * @return the change to redo, or null if there is none
+     */
+    TaskChange nextRedo() {
+        return redoable == 0 ? null : changes[indexOf(undoable)];
+    }
+
+    /**
+     * Moves the change returned by {@link #nextRedo()} back to the undo side.
+     */
+    void redone() {
+        undoable++;
+        redoable--;
+    }
+
+    private int indexOf(int offset) {
+        return (oldest + offset) % changes.length;
+    }
+}
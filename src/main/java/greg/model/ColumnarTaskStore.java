@@ -0,0 +1,352 @@
+package greg.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import greg.exception.GregException;
+
+/**
+ * A task list that stores tasks column by column in primitive arrays instead of as objects.
+ * <p>
+ * Each task takes a type byte, a done bit, four ints for its dates and times, and its UTF-8
+ * description in a shared byte arena, rather than a {@link Task} with a {@code String} and
+ * {@code LocalDate} and time {@code String} fields of its own. {@link #get(int)} materializes a
+ * new task object on every call, so a changed task must be written back with
+ * {@link #set(int, Task)}; {@link TaskList} does this for mark and unmark.
+ * <p>
+ * Dates are stored as epoch days and times as their {@code HHmm} number, or -1 if absent.
+ * A null element is allowed and is stored as a type of its own, which is how {@link TaskList}
+ * leaves tombstones.
+ * <p>
+ * Not thread-safe.
+ */
+public class ColumnarTaskStore extends AbstractList<Task> implements RandomAccess {
+
+    private static final byte NONE = 0;
+    private static final byte TODO = 1;
+    private static final byte DEADLINE = 2;
+    private static final byte EVENT = 3;
+
+    private static final int NO_TIME = -1;
+
+    private byte[] types;
+    private long[] doneBits;
+    // Deadline: by date and time. Event: from date and time, to date and time.
+    private int[] firstDays;
+    private int[] firstTimes;
+    private int[] secondDays;
+    private int[] secondTimes;
+    private int[] descriptionStarts;
+    private int[] descriptionLengths;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int garbageBytes;
+    private int size;
+
+    /**
+     * Creates an empty store.
+     */
+    public ColumnarTaskStore() {
+        this(16);
+    }
+
+    private ColumnarTaskStore(int capacity) {
+        types = new byte[capacity];
+        doneBits = new long[(capacity + 63) / 64];
+        firstDays = new int[capacity];
+        firstTimes = new int[capacity];
+        secondDays = new int[capacity];
+        secondTimes = new int[capacity];
+        descriptionStarts = new int[capacity];
+        descriptionLengths = new int[capacity];
+        arena = new byte[capacity * 16];
+    }
+
+    /**
+     * Creates a store holding the given tasks.
+     *
+     * @param tasks tasks to copy in, in order
+     * @return the store
+     */
+    public static ColumnarTaskStore of(Collection<Task> tasks) {
+        ColumnarTaskStore store = new ColumnarTaskStore(Math.max(tasks.size(), 16));
+        store.addAll(tasks);
+        return store;
+    }
+
+    /**
+     * Builds a new task object from the columns of a row.
+     *
+     * @param index 0-indexed row
+     * @return the task, or null for a tombstone
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        if (types[index] == NONE) {
+            return null;
+        }
+
+        String description = new String(arena, descriptionStarts[index], descriptionLengths[index],
+                StandardCharsets.UTF_8);
+        try {
+            Task task;
+            switch (types[index]) {
+                case TODO:
+                    task = new Todo(description, false);
+                    break;
+
+                case DEADLINE:
+                    task = new Deadline(description, LocalDate.ofEpochDay(firstDays[index]),
+                            timeString(firstTimes[index]), false);
+                    break;
+
+                default:
+                    task = new Event(description, LocalDate.ofEpochDay(firstDays[index]),
+                            timeString(firstTimes[index]), LocalDate.ofEpochDay(secondDays[index]),
+                            timeString(secondTimes[index]), false);
+                    break;
+            }
+            task.mark(isDone(index));
+            return task;
+        } catch (GregException e) {
+            // Only a blank description is rejected, and every stored description came from a task.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index != size) {
+            checkIndex(index, size);
+        }
+        ensureCapacity(size + 1);
+        shift(index, index + 1, size - index);
+        size++;
+        descriptionLengths[index] = 0; // the row holds no description yet
+        write(index, task, false);
+        modCount++;
+    }
+
+    /**
+     * Overwrites a row with the given task. The description is only copied into the arena again
+     * if it changed, so writing back a marked task costs no arena space.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        Task previous = get(index);
+        write(index, task, previous != null && task != null
+                && previous.getDescription().equals(task.getDescription()));
+        return previous;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        garbageBytes += descriptionLengths[index];
+        shift(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes the matching tasks in a single pass over the columns, then drops the descriptions
+     * of removed tasks from the arena. Null rows are tested without materializing anything.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.test(types[i] == NONE ? null : get(i))) {
+                garbageBytes += descriptionLengths[i];
+            } else {
+                if (kept != i) {
+                    copyRow(i, kept);
+                }
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        size = kept;
+        modCount++;
+        if (garbageBytes > arenaSize / 2) {
+            compactArena();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the tasks in {@code c} in a single pass, as {@link #removeIf(Predicate)} does.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    /**
+     * Returns the number of bytes held by the columns and the description arena.
+     *
+     * @return approximate heap footprint of the stored tasks
+     */
+    public long getFootprintBytes() {
+        return types.length + doneBits.length * 8L + (long) firstDays.length * 4 * 6 + arena.length;
+    }
+
+    private void write(int index, Task task, boolean isSameDescription) {
+        if (task == null) {
+            garbageBytes += descriptionLengths[index];
+            types[index] = NONE;
+            descriptionLengths[index] = 0;
+            setDone(index, false);
+            return;
+        }
+
+        if (!isSameDescription) {
+            garbageBytes += descriptionLengths[index];
+            descriptionLengths[index] = 0; // the arena may be compacted while appending
+            byte[] bytes = task.getDescription().getBytes(StandardCharsets.UTF_8);
+            descriptionStarts[index] = append(bytes);
+            descriptionLengths[index] = bytes.length;
+        }
+        setDone(index, task.isMarked());
+
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            types[index] = DEADLINE;
+            firstDays[index] = Math.toIntExact(deadline.getByDate().toEpochDay());
+            firstTimes[index] = timeNumber(deadline.getByTime());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            types[index] = EVENT;
+            firstDays[index] = Math.toIntExact(event.getFromDate().toEpochDay());
+            firstTimes[index] = timeNumber(event.getFromTime());
+            secondDays[index] = Math.toIntExact(event.getToDate().toEpochDay());
+            secondTimes[index] = timeNumber(event.getToTime());
+        } else {
+            types[index] = TODO;
+        }
+    }
+
+    private int append(byte[] bytes) {
+        if (arenaSize + bytes.length > arena.length) {
+            if (garbageBytes > arenaSize / 2) {
+                compactArena();
+            }
+            if (arenaSize + bytes.length > arena.length) {
+                int capacity = Math.max(arena.length * 2, arenaSize + bytes.length);
+                arena = Arrays.copyOf(arena, capacity);
+            }
+        }
+        int start = arenaSize;
+        System.arraycopy(bytes, 0, arena, start, bytes.length);
+        arenaSize += bytes.length;
+        return start;
+    }
+
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(arenaSize - garbageBytes, 16)];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == NONE) {
+                continue;
+            }
+            System.arraycopy(arena, descriptionStarts[i], compacted, next, descriptionLengths[i]);
+            descriptionStarts[i] = next;
+            next += descriptionLengths[i];
+        }
+        arena = compacted;
+        arenaSize = next;
+        garbageBytes = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int grown = Math.max(types.length * 2, capacity);
+        types = Arrays.copyOf(types, grown);
+        doneBits = Arrays.copyOf(doneBits, (grown + 63) / 64);
+        firstDays = Arrays.copyOf(firstDays, grown);
+        firstTimes = Arrays.copyOf(firstTimes, grown);
+        secondDays = Arrays.copyOf(secondDays, grown);
+        secondTimes = Arrays.copyOf(secondTimes, grown);
+        descriptionStarts = Arrays.copyOf(descriptionStarts, grown);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, grown);
+    }
+
+    /**
+     * Moves {@code count} rows starting at {@code from} to start at {@code to}.
+     */
+    private void shift(int from, int to, int count) {
+        if (count <= 0) {
+            return;
+        }
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(firstDays, from, firstDays, to, count);
+        System.arraycopy(firstTimes, from, firstTimes, to, count);
+        System.arraycopy(secondDays, from, secondDays, to, count);
+        System.arraycopy(secondTimes, from, secondTimes, to, count);
+        System.arraycopy(descriptionStarts, from, descriptionStarts, to, count);
+        System.arraycopy(descriptionLengths, from, descriptionLengths, to, count);
+        if (from < to) {
+            for (int i = count - 1; i >= 0; i--) {
+                setDone(to + i, isDone(from + i));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                setDone(to + i, isDone(from + i));
+            }
+        }
+    }
+
+    private void copyRow(int from, int to) {
+        types[to] = types[from];
+        setDone(to, isDone(from));
+        firstDays[to] = firstDays[from];
+        firstTimes[to] = firstTimes[from];
+        secondDays[to] = secondDays[from];
+        secondTimes[to] = secondTimes[from];
+        descriptionStarts[to] = descriptionStarts[from];
+        descriptionLengths[to] = descriptionLengths[from];
+    }
+
+    private boolean isDone(int index) {
+        return (doneBits[index >>> 6] & 1L << index) != 0;
+    }
+
+    private void setDone(int index, boolean done) {
+        if (done) {
+            doneBits[index >>> 6] |= 1L << index;
+        } else {
+            doneBits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private static int timeNumber(String time) {
+        return time.isEmpty() ? NO_TIME : Integer.parseInt(time);
+    }
+
+    private static String timeString(int time) {
+        return time == NO_TIME ? "" : String.format("%04d", time);
+    }
+
+    private static void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + limit);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package greg.model;
+
+import java.util.Arrays;
+
+/**
+ * An ascending list of task IDs, stored as variable-length deltas in a byte array.
+ * <p>
+ * Consecutive IDs in a posting list are usually close together, so most deltas take
+ * a single byte instead of the four of an {@code int} (or the twenty-odd of a boxed {@code Integer}).
+ */
+class CompressedPostingList {
+
+    private byte[] bytes = new byte[4];
+    private int length;
+    private int count;
+    private int last;
+
+    /**
+     * Appends an ID larger than any already in the list.
+     *
+     * @param value task ID
+     */
+    void add(int value) {
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        int delta = value - last;
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) (delta & 0x7F | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = value;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int last() {
+        return last;
+    }
+
+    /**
+     * Decodes the whole list.
+     *
+     * @return IDs in ascending order
+     */
+    int[] toArray() {
+        int[] values = new int[count];
+        int value = 0;
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Keeps only the values of {@code values[0, valueCount)} that are also in this list,
+     * decoding the list once without materialising it.
+     *
+     * @param values ascending values; overwritten with the intersection
+     * @param valueCount number of values to consider
+     * @return number of values kept
+     */
+    int retainIn(int[] values, int valueCount) {
+        int kept = 0;
+        int pos = 0;
+        int value = -1;
+        int decoded = 0;
+        for (int i = 0; i < valueCount; i++) {
+            while (value < values[i]) {
+                if (decoded == count) {
+                    return kept;
+                }
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value = (decoded == 0 ? 0 : value) + delta;
+                decoded++;
+            }
+            if (value == values[i]) {
+                values[kept++] = values[i];
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,43 @@
+package greg.model;
+
+import java.time.LocalDate;
+
+/**
+ * Small cache of recently created dates, so tasks that fall on the same day share one
+ * {@link LocalDate} and loading them skips the calendar validation.
+ * <p>
+ * The cache is direct-mapped: each date has a single slot, and a date that maps to an occupied
+ * slot replaces the one there. Consecutive days map to consecutive slots, so a list whose dates
+ * span a couple of years is served entirely from the cache. Thread-safe, since {@code LocalDate}
+ * is immutable and a slot is read and written in one step.
+ */
+public final class DateCache {
+
+    private static final int SIZE = 1024;
+    private static final LocalDate[] DATES = new LocalDate[SIZE];
+
+    private DateCache() {
+    }
+
+    /**
+     * Returns the date with the given fields, reusing a cached instance when possible.
+     *
+     * @param year year, such as 2026
+     * @param month month of the year, from 1 to 12
+     * @param day day of the month, from 1 to 31
+     * @return the date
+     * @throws java.time.DateTimeException if the fields do not form a valid date
+     */
+    public static LocalDate of(int year, int month, int day) {
+        int slot = Math.floorMod(year * 372 + month * 31 + day, SIZE);
+        LocalDate cached = DATES[slot];
+        if (cached != null && cached.getDayOfMonth() == day && cached.getMonthValue() == month
+                && cached.getYear() == year) {
+            return cached;
+        }
+
+        LocalDate date = LocalDate.of(year, month, day);
+        DATES[slot] = date;
+        return date;
+    }
+}
@@ -22,10 +22,37 @@ public class Deadline extends Task {
     public Deadline(String description, String byRaw) throws GregException {
         super(description);
 
-        this.byDate = parseDate(byRaw);
-        this.byTime = parseOptionalTime(byRaw);
+        TaskDateTime by = TaskDateTime.parse(byRaw);
+        this.byDate = by.date;
+        this.byTime = by.time;
     }
 
+    /**
+     * Creates a deadline task from an already parsed date and time.
+     *
+     * @param description Task description.
+     * @param byDate      Due date.
+     * @param byTime      Due time as HHmm, or an empty string if none.
+     * @throws GregException If the description is empty.
+     */
+    public Deadline(String description, LocalDate byDate, String byTime) throws GregException {
+        this(description, byDate, byTime, true);
+    }
+
+    Deadline(String description, LocalDate byDate, String byTime, boolean isPooled) throws GregException {
+        super(description, isPooled);
+
+        this.byDate = byDate;
+        this.byTime = byTime;
+    }
+
+    public LocalDate getByDate() {
+        return byDate;
+    }
+
+    public String getByTime() {
+        return byTime;
+    }
 
     @Override
     public String toString() {
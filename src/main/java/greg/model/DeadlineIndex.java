@@ -0,0 +1,72 @@
+package greg.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of deadlines ordered by due date and time, so that the deadlines in a date range are
+ * found in O(log n + k) instead of by checking every task.
+ * <p>
+ * Each due moment is a single {@link TimeKeys} key. A deadline without a time is due by the end
+ * of its day and sorts after every timed deadline on that day. Deadlines due at the same moment
+ * are kept in ID order.
+ */
+class DeadlineIndex {
+
+    private final TreeMap<Long, PostingList> idsByDue = new TreeMap<>();
+
+    /**
+     * Indexes a deadline.
+     *
+     * @param id ID of the task; larger than any indexed so far unless the task was restored
+     * @param deadline the deadline
+     */
+    void add(int id, Deadline deadline) {
+        idsByDue.computeIfAbsent(keyOf(deadline), k -> new PostingList()).add(id);
+    }
+
+    void remove(int id, Deadline deadline) {
+        Long key = keyOf(deadline);
+        PostingList ids = idsByDue.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByDue.remove(key);
+        }
+    }
+
+    /**
+     * Returns the IDs of the deadlines due from {@code fromKey} to {@code toKey}, inclusive, in
+     * due order.
+     *
+     * @param fromKey first due key
+     * @param toKey last due key
+     * @param limit maximum number of IDs to return
+     * @return IDs in due order
+     */
+    int[] find(long fromKey, long toKey, int limit) {
+        NavigableMap<Long, PostingList> range = idsByDue.subMap(fromKey, true, toKey, true);
+        int[] found = new int[16];
+        int count = 0;
+        for (Map.Entry<Long, PostingList> entry : range.entrySet()) {
+            PostingList ids = entry.getValue();
+            if (count + ids.size() > found.length) {
+                found = Arrays.copyOf(found, Math.max(count + ids.size(), found.length * 2));
+            }
+            ids.copyTo(found, count);
+            count += ids.size();
+            if (count >= limit) {
+                break;
+            }
+        }
+        return Arrays.copyOf(found, Math.min(count, limit));
+    }
+
+    private static long keyOf(Deadline deadline) {
+        if (deadline.getByTime().isEmpty()) {
+            return TimeKeys.lastOf(deadline.getByDate());
+        }
+        return TimeKeys.of(deadline.getByDate(), deadline.getByTime());
+    }
+}
@@ -0,0 +1,109 @@
+package greg.model;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Opt-in pool that makes tasks with equal descriptions share one {@code String}.
+ * <p>
+ * While the pool is enabled, every task created (whether loaded from the save file or added by
+ * the user) has its description replaced by the pooled copy, so a list with thousands of
+ * "weekly sync" events holds that description once. The pool only holds weak references: once
+ * no task uses a description any more, the string can be garbage collected and its entry drops
+ * out of the pool.
+ * <p>
+ * The pool is process-wide because descriptions are canonicalized in the {@link Task}
+ * constructor, which every loader goes through. Thread-safe, since save files are parsed in
+ * parallel.
+ */
+public class DescriptionPool {
+
+    // String object header and fields, plus the header of its value array (compressed oops)
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+    private static volatile DescriptionPool active;
+
+    private final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<>();
+    private long lookupCount;
+    private long hitCount;
+    private long bytesSaved;
+
+    private DescriptionPool() {
+    }
+
+    /**
+     * Starts canonicalizing the descriptions of tasks created from now on. Does nothing if the
+     * pool is already enabled.
+     */
+    public static synchronized void enable() {
+        if (active == null) {
+            active = new DescriptionPool();
+        }
+    }
+
+    /**
+     * Stops canonicalizing descriptions and drops the pool; tasks keep the strings they have.
+     */
+    public static synchronized void disable() {
+        active = null;
+    }
+
+    /**
+     * Returns how much the pool has deduplicated since it was enabled.
+     *
+     * @return statistics of the pool, all zero if it is disabled
+     */
+    public static DescriptionPoolStats getStats() {
+        DescriptionPool pool = active;
+        if (pool == null) {
+            return new DescriptionPoolStats(false, 0, 0, 0, 0);
+        }
+        synchronized (pool) {
+            return new DescriptionPoolStats(true, pool.pool.size(), pool.lookupCount, pool.hitCount,
+                    pool.bytesSaved);
+        }
+    }
+
+    /**
+     * Returns the pooled copy of a description, or the description itself if the pool is
+     * disabled or has no equal string yet.
+     *
+     * @param description trimmed description
+     * @return canonical description
+     */
+    static String canonicalize(String description) {
+        DescriptionPool pool = active;
+        return pool == null ? description : pool.intern(description);
+    }
+
+    private synchronized String intern(String description) {
+        lookupCount++;
+        WeakReference<String> ref = pool.get(description);
+        String pooled = ref == null ? null : ref.get();
+        if (pooled == null) {
+            pool.put(description, new WeakReference<>(description));
+            return description;
+        }
+
+        if (pooled != description) {
+            hitCount++;
+            bytesSaved += sizeOf(description);
+        }
+        return pooled;
+    }
+
+    /**
+     * Estimates the heap taken by a string, which is freed when a duplicate is dropped.
+     */
+    private static long sizeOf(String s) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        long size = STRING_OVERHEAD_BYTES + (long) s.length() * bytesPerChar;
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,57 @@
+package greg.model;
+
+/**
+ * Snapshot of how much {@link DescriptionPool} has deduplicated.
+ */
+public class DescriptionPoolStats {
+
+    private final boolean isEnabled;
+    private final int distinctCount;
+    private final long lookupCount;
+    private final long hitCount;
+    private final long bytesSaved;
+
+    DescriptionPoolStats(boolean isEnabled, int distinctCount, long lookupCount, long hitCount, long bytesSaved) {
+        this.isEnabled = isEnabled;
+        this.distinctCount = distinctCount;
+        this.lookupCount = lookupCount;
+        this.hitCount = hitCount;
+        this.bytesSaved = bytesSaved;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Returns the number of distinct descriptions in the pool that are still in use.
+     *
+     * @return pooled descriptions
+     */
+    public int getDistinctCount() {
+        return distinctCount;
+    }
+
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Returns the number of descriptions that were replaced by an equal pooled string.
+     *
+     * @return duplicates dropped
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the estimated heap held by the duplicates that were dropped, counting each
+     * duplicate once when it was replaced.
+     *
+     * @return estimated bytes saved
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+}
@@ -25,11 +25,54 @@ public class Event extends Task {
     public Event(String description, String fromRaw, String toRaw) throws GregException {
         super(description);
 
-        this.fromDate = parseDate(fromRaw);
-        this.fromTime = parseOptionalTime(fromRaw);
+        TaskDateTime from = TaskDateTime.parse(fromRaw);
+        this.fromDate = from.date;
+        this.fromTime = from.time;
 
-        this.toDate = parseDate(toRaw);
-        this.toTime = parseOptionalTime(toRaw);
+        TaskDateTime to = TaskDateTime.parse(toRaw);
+        this.toDate = to.date;
+        this.toTime = to.time;
+    }
+
+    /**
+     * Creates an event task from already parsed dates and times.
+     *
+     * @param description task description
+     * @param fromDate start date
+     * @param fromTime start time as HHmm, or "" if none
+     * @param toDate end date
+     * @param toTime end time as HHmm, or "" if none
+     * @throws GregException if description is empty
+     */
+    public Event(String description, LocalDate fromDate, String fromTime, LocalDate toDate, String toTime)
+            throws GregException {
+        this(description, fromDate, fromTime, toDate, toTime, true);
+    }
+
+    Event(String description, LocalDate fromDate, String fromTime, LocalDate toDate, String toTime,
+            boolean isPooled) throws GregException {
+        super(description, isPooled);
+
+        this.fromDate = fromDate;
+        this.fromTime = fromTime;
+        this.toDate = toDate;
+        this.toTime = toTime;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public String getFromTime() {
+        return fromTime;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public String getToTime() {
+        return toTime;
     }
 
     @Override
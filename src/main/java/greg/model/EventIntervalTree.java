@@ -0,0 +1,197 @@
+package greg.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Augmented interval tree over event time ranges, so that the events overlapping a window are
+ * found in O(log n + k) instead of by checking every task.
+ * <p>
+ * An event covers the half-open range [start, end) of {@link TimeKeys} keys. A start date without
+ * a time starts at midnight, and an end date without a time ends at the following midnight, so an
+ * all-day event on one date overlaps every moment of that date. Events that touch, such as one
+ * ending at 1100 and another starting at 1100, do not overlap.
+ * <p>
+ * The tree is a treap ordered by (start, ID), so it stays balanced in expectation whatever the
+ * insertion order, and each node also records the largest end in its subtree: a subtree whose
+ * largest end is not after the window's start cannot contain an overlapping event.
+ */
+class EventIntervalTree {
+
+    private Node root;
+
+    /**
+     * Indexes an event.
+     *
+     * @param id ID of the task
+     * @param event the event
+     */
+    void add(int id, Event event) {
+        root = insert(root, new Node(startOf(event), endOf(event), id));
+    }
+
+    void remove(int id, Event event) {
+        root = delete(root, startOf(event), id);
+    }
+
+    /**
+     * Returns the IDs of the events overlapping [from, to), ordered by start.
+     *
+     * @param from start key of the window
+     * @param to end key of the window, exclusive
+     * @return IDs of the overlapping events
+     */
+    int[] findOverlapping(long from, long to) {
+        Overlaps overlaps = new Overlaps();
+        collect(root, from, to, overlaps);
+        return Arrays.copyOf(overlaps.ids, overlaps.count);
+    }
+
+    static long startOf(Event event) {
+        return TimeKeys.of(event.getFromDate(), event.getFromTime());
+    }
+
+    static long endOf(Event event) {
+        if (event.getToTime().isEmpty()) {
+            return TimeKeys.of(event.getToDate().plusDays(1), 0);
+        }
+        return TimeKeys.of(event.getToDate(), event.getToTime());
+    }
+
+    private static void collect(Node node, long from, long to, Overlaps overlaps) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, overlaps);
+        if (node.start >= to) {
+            // Everything to the right starts even later.
+            return;
+        }
+        if (node.end > from) {
+            overlaps.add(node.id);
+        }
+        collect(node.right, from, to, overlaps);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.compareTo(node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = node.compareTo(start, id);
+        if (cmp > 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp < 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every node of {@code left} sorts before every node of {@code right}.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final int id;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+
+        int compareTo(Node other) {
+            return compareTo(other.start, other.id);
+        }
+
+        int compareTo(long otherStart, int otherId) {
+            int cmp = Long.compare(start, otherStart);
+            return cmp != 0 ? cmp : Integer.compare(id, otherId);
+        }
+    }
+
+    private static class Overlaps {
+        private int[] ids = new int[16];
+        private int count;
+
+        void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package greg.model;
+
+/**
+ * How {@link TaskList#find(String)} looks for matching tasks. Every strategy returns the same
+ * tasks in the same order.
+ */
+public enum FindStrategy {
+    /** Checks every description; the reference implementation. */
+    LINEAR,
+    /** Looks query terms up in an inverted index of description words. */
+    WORD_INDEX,
+    /** Narrows candidates down with an index of three-character substrings, then checks them. */
+    TRIGRAM_INDEX
+}
@@ -0,0 +1,110 @@
+package greg.model;
+
+import java.util.Arrays;
+
+/**
+ * Map from positive task IDs to slots in the task list, using open addressing over primitive
+ * arrays so that lookups neither box nor allocate.
+ */
+class IdSlotMap {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IdSlotMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Maps an ID to a slot, replacing any previous mapping.
+     *
+     * @param id positive task ID
+     * @param slot slot of the task
+     */
+    void put(int id, int slot) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int i = indexOf(id);
+        if (keys[i] == EMPTY) {
+            keys[i] = id;
+            size++;
+        }
+        values[i] = slot;
+    }
+
+    /**
+     * Returns the slot of an ID.
+     *
+     * @param id task ID
+     * @return slot, or -1 if the ID is not mapped
+     */
+    int get(int id) {
+        if (id <= 0) {
+            return -1;
+        }
+        int i = indexOf(id);
+        return keys[i] == EMPTY ? -1 : values[i];
+    }
+
+    void remove(int id) {
+        int i = indexOf(id);
+        if (keys[i] == EMPTY) {
+            return;
+        }
+
+        // Shift later entries of the probe sequence back so no lookup stops at the gap.
+        int mask = keys.length - 1;
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int indexOf(int id) {
+        int mask = keys.length - 1;
+        int i = hash(id) & mask;
+        while (keys[i] != EMPTY && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
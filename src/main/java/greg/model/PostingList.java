@@ -0,0 +1,54 @@
+package greg.model;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of task IDs, stored in a primitive array.
+ */
+class PostingList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    /**
+     * Adds an ID that is not in the list yet. Takes O(1) for an ID larger than any already in the
+     * list, as for a newly added task; a smaller one, of a restored task, is inserted in place.
+     *
+     * @param value task ID
+     */
+    void add(int value) {
+        int i = size == 0 || values[size - 1] < value ? size : -Arrays.binarySearch(values, 0, size, value) - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i >= 0) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the IDs, in ascending order, into {@code target}.
+     *
+     * @param target destination array
+     * @param offset index of the first value in {@code target}
+     */
+    void copyTo(int[] target, int offset) {
+        System.arraycopy(values, 0, target, offset, size);
+    }
+}
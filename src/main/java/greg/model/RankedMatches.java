@@ -0,0 +1,36 @@
+package greg.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The best matches of a ranked search, and how many tasks matched in total.
+ */
+public class RankedMatches {
+
+    private final List<Task> tasks;
+    private final int matchCount;
+
+    RankedMatches(List<Task> tasks, int matchCount) {
+        this.tasks = tasks;
+        this.matchCount = matchCount;
+    }
+
+    /**
+     * Returns the best matches, best first.
+     *
+     * @return unmodifiable list of at most the requested number of tasks
+     */
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * Returns the number of tasks that matched at least one term.
+     *
+     * @return total matches, of which only the best were kept
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+}
@@ -0,0 +1,103 @@
+package greg.model;
+
+import java.util.Arrays;
+
+/**
+ * Counts live slots of a task list that contains tombstones, so that task numbers and slots can
+ * be converted into each other in O(log n).
+ * <p>
+ * Implemented as a Fenwick tree over one bit per slot (1 = live, 0 = tombstone).
+ */
+class SlotRanks {
+
+    private int[] tree;
+    private int size;
+
+    /**
+     * Builds the counts for the first {@code slotCount} slots in O(n).
+     *
+     * @param ids ID of each slot, negative for a tombstone
+     * @param slotCount number of slots
+     */
+    SlotRanks(int[] ids, int slotCount) {
+        tree = new int[Math.max(slotCount, 16) + 1];
+        size = slotCount;
+        for (int i = 1; i <= size; i++) {
+            tree[i] += ids[i - 1] > 0 ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Appends a live slot.
+     */
+    void append() {
+        if (size + 1 == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int i = ++size;
+        tree[i] = 1 + prefix(i - 1) - prefix(i - (i & -i));
+    }
+
+    /**
+     * Turns a live slot into a tombstone.
+     *
+     * @param slot 0-indexed slot
+     */
+    void kill(int slot) {
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i]--;
+        }
+    }
+
+    /**
+     * Turns a tombstone back into a live slot.
+     *
+     * @param slot 0-indexed slot
+     */
+    void revive(int slot) {
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i]++;
+        }
+    }
+
+    /**
+     * Returns the number of live slots up to and including {@code slot}.
+     *
+     * @param slot 0-indexed slot
+     * @return 1-indexed task number if the slot is live
+     */
+    int rank(int slot) {
+        return prefix(slot + 1);
+    }
+
+    /**
+     * Returns the slot holding the live task with the given 0-indexed position.
+     *
+     * @param index 0-indexed position among live slots; must be in range
+     * @return 0-indexed slot
+     */
+    int select(int index) {
+        int remaining = index + 1;
+        int pos = 0;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= size && tree[next] < remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    private int prefix(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
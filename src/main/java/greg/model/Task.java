@@ -1,7 +1,6 @@
 package greg.model;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
 
 import greg.exception.GregException;
 import greg.model.Todo;
@@ -18,9 +17,10 @@ public abstract class Task {
     protected final String description;
     protected boolean marked;
 
+    // Assigned by the TaskList holding the task; 0 until then.
+    private int id;
+
     private static final String SAVE_DELIMITER_REGEX = "\\s*\\|\\s*";
-    private static final String WHITESPACE_REGEX = "\\s+";
-    private static final String TIME_REGEX = "\\d{4}";
 
     private static final String TYPE_TODO = "T";
     private static final String TYPE_DEADLINE = "D";
@@ -30,14 +30,23 @@ public abstract class Task {
     private static final String ERROR_CORRUPTED_DEADLINE_LINE = "Corrupted deadline line.";
     private static final String ERROR_CORRUPTED_EVENT_LINE = "Corrupted event line.";
     private static final String ERROR_UNKNOWN_TASK_TYPE = "Unknown task type in save file.";
-    private static final String ERROR_INVALID_DATE = "Invalid date format. Use yyyy-mm-dd [HHmm].";
-    private static final String ERROR_INVALID_TIME = "Invalid time format. Use HHmm (24-hour).";
 
     public Task(String description) throws GregException {
+        this(description, true);
+    }
+
+    /**
+     * Creates a task, sharing its description through {@link DescriptionPool} only if
+     * {@code isPooled}. Copies that are rebuilt on every read, such as those handed out by
+     * {@link ColumnarTaskStore}, are not pooled: they are dropped right away, so pooling them
+     * would only count savings that never happen.
+     */
+    Task(String description, boolean isPooled) throws GregException {
         if (description == null || description.isBlank()) {
             throw new GregException("Task description cannot be empty.");
         }
-        this.description = description.trim();
+        String trimmed = description.trim();
+        this.description = isPooled ? DescriptionPool.canonicalize(trimmed) : trimmed;
         this.marked = false;
     }
 
@@ -45,6 +54,25 @@ public abstract class Task {
         return description;
     }
 
+    /**
+     * Returns the ID of the task, which stays the same while the task is in the list even when
+     * tasks before it are deleted. IDs are not saved: they are session handles, given out again
+     * in list order each time the tasks are loaded.
+     *
+     * @return positive ID, or 0 if the task has not been added to a list
+     */
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    public boolean isMarked() {
+        return marked;
+    }
+
     public void mark(boolean val) {
         this.marked = val;
     }
@@ -63,49 +91,6 @@ public abstract class Task {
     public abstract String toSaveString();
 
 
-    /**
-     * Parses the date portion from a raw input string.
-     * <p>
-     * The expected format is: yyyy-mm-dd [HHmm]
-     * Only the date portion is extracted by this method.
-     *
-     * @param raw raw input string containing date (and optional time)
-     * @return parsed {@link LocalDate}
-     * @throws GregException if the date format is invalid
-     */
-    protected static LocalDate parseDate(String raw) throws GregException {
-        String[] parts = splitByWhitespace(raw);
-        try {
-            return LocalDate.parse(parts[0]);
-        } catch (DateTimeParseException e) {
-            throw new GregException(ERROR_INVALID_DATE);
-        }
-    }
-
-    /**
-     * Parses the optional time portion from a raw input string.
-     * <p>
-     * If no time is provided, returns an empty string.
-     * Time must be in 24-hour format HHmm (e.g., 1730).
-     *
-     * @param raw raw input string containing date (and optional time)
-     * @return time string (HHmm) or empty string if not provided
-     * @throws GregException if the time format is invalid
-     */
-    protected static String parseOptionalTime(String raw) throws GregException {
-        String[] parts = splitByWhitespace(raw);
-
-        if (parts.length == 1) {
-            return "";
-        }
-
-        if (parts.length == 2 && parts[1].matches(TIME_REGEX)) {
-            return parts[1];
-        }
-
-        throw new GregException(ERROR_INVALID_TIME);
-    }
-
     /**
      * Formats a date and optional time into a display string.
      * <p>
@@ -131,7 +116,8 @@ public abstract class Task {
             throw new GregException(ERROR_CORRUPTED_SAVE_LINE);
         }
 
-        String[] parts = line.split(SAVE_DELIMITER_REGEX);
+        // Keep trailing empty fields so date-only deadlines and events keep their time columns.
+        String[] parts = line.split(SAVE_DELIMITER_REGEX, -1);
         if (parts.length < 3) {
             throw new GregException(ERROR_CORRUPTED_SAVE_LINE);
         }
@@ -190,11 +176,4 @@ public abstract class Task {
     private static String joinDateTime(String date, String time) {
         return (time == null || time.isEmpty()) ? date : date + " " + time;
     }
-
-    private static String[] splitByWhitespace(String raw) throws GregException {
-        if (raw == null) {
-            throw new GregException(ERROR_CORRUPTED_SAVE_LINE);
-        }
-        return raw.trim().split(WHITESPACE_REGEX);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package greg.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import greg.exception.GregException;
+
+/**
+ * A date with an optional time, as given to deadlines and events in the form
+ * {@code yyyy-mm-dd [HHmm]}.
+ * <p>
+ * The date and time are read in one scan over the raw string, without regular expressions. The
+ * usual {@code yyyy-mm-dd} form is parsed digit by digit and served from the {@link DateCache};
+ * other forms that {@link LocalDate#parse(CharSequence)} accepts, such as years beyond 9999,
+ * still go through it.
+ */
+final class TaskDateTime {
+
+    private static final int DATE_LENGTH = 10;
+    private static final int TIME_LENGTH = 4;
+
+    private static final String ERROR_CORRUPTED_SAVE_LINE = "Corrupted save line.";
+    private static final String ERROR_INVALID_DATE = "Invalid date format. Use yyyy-mm-dd [HHmm].";
+    private static final String ERROR_INVALID_TIME = "Invalid time format. Use HHmm (24-hour).";
+
+    final LocalDate date;
+    // HHmm, or "" if no time was given
+    final String time;
+
+    private TaskDateTime(LocalDate date, String time) {
+        this.date = date;
+        this.time = time;
+    }
+
+    /**
+     * Parses a date and optional time separated by whitespace, such as "2026-03-02 1800".
+     *
+     * @param raw raw date/time string
+     * @return the parsed date and time
+     * @throws GregException if the date or the time is invalid; the date is checked first
+     */
+    static TaskDateTime parse(String raw) throws GregException {
+        if (raw == null) {
+            throw new GregException(ERROR_CORRUPTED_SAVE_LINE);
+        }
+
+        int start = 0;
+        int end = raw.length();
+        while (start < end && raw.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && raw.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int dateEnd = start;
+        while (dateEnd < end && !isSpace(raw.charAt(dateEnd))) {
+            dateEnd++;
+        }
+        LocalDate date = parseDate(raw, start, dateEnd);
+
+        int timeStart = dateEnd;
+        while (timeStart < end && isSpace(raw.charAt(timeStart))) {
+            timeStart++;
+        }
+        if (timeStart == end) {
+            return new TaskDateTime(date, "");
+        }
+        if (end - timeStart != TIME_LENGTH || !areDigits(raw, timeStart, end)) {
+            throw new GregException(ERROR_INVALID_TIME);
+        }
+        return new TaskDateTime(date, raw.substring(timeStart, end));
+    }
+
+    private static LocalDate parseDate(String raw, int start, int end) throws GregException {
+        if (end - start == DATE_LENGTH && raw.charAt(start + 4) == '-' && raw.charAt(start + 7) == '-'
+                && areDigits(raw, start, start + 4) && areDigits(raw, start + 5, start + 7)
+                && areDigits(raw, start + 8, end)) {
+            try {
+                return DateCache.of(number(raw, start, start + 4), number(raw, start + 5, start + 7),
+                        number(raw, start + 8, end));
+            } catch (DateTimeException e) {
+                throw new GregException(ERROR_INVALID_DATE);
+            }
+        }
+
+        try {
+            return LocalDate.parse(raw.substring(start, end));
+        } catch (DateTimeParseException e) {
+            throw new GregException(ERROR_INVALID_DATE);
+        }
+    }
+
+    private static boolean areDigits(String raw, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(String raw, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (raw.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether {@code c} separates the date from the time, matching the regular
+     * expression {@code \s}.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -1,8 +1,14 @@
 package greg.model;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
 
 import greg.exception.GregException;
 
@@ -10,18 +16,50 @@ import greg.exception.GregException;
  * Maintains the in-memory list of tasks and provides task operations.
  * <p>
  * Responsible for add/delete/mark/unmark/find operations and for validating indices.
+ * <p>
+ * Every task gets an ID when it enters the list, and the ID stays the same while tasks before it
+ * are deleted, unlike its 1-indexed task number. IDs are session handles: they are not saved,
+ * and a list loaded from disk numbers its tasks from 1 again. Deleting a task only leaves a tombstone in its
+ * slot; tombstones are removed in one pass once they make up a large part of the list, so a
+ * delete does not shift every later task. Until then, a deleted task can be put back into its
+ * tombstone with {@link #restore(Task)}, e.g. to undo the delete.
+ * <p>
+ * By default, {@link #find(String)} uses a trigram index that is built on the first search and
+ * then kept up to date by {@link #add(Task)} and {@link #delete(int)}. Deadlines are indexed by
+ * due date the same way for {@link #findDue(LocalDate, LocalDate)} and
+ * {@link #findUpcoming(LocalDateTime, int)}, and events by time range for
+ * {@link #findClashes(Event)} and {@link #findEventsOn(LocalDate)}.
  */
 public class TaskList {
 
     private static final String ERROR_INVALID_TASK_NUMBER = "Invalid task number.";
+    private static final String ERROR_UNKNOWN_TASK_ID = "No task has handle #%d.";
+    private static final String ERROR_NOT_RESTORABLE = "Task is not a deleted task of this list.";
 
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+    private static final List<Task> TOMBSTONES = Collections.singletonList(null);
+
+    // One slot per task; a deleted task leaves a null tombstone until the list is compacted.
     private final List<Task> tasks;
+    // ID of the task in each slot, negated for a tombstone. Absolute IDs increase with the slot.
+    private int[] ids;
+    private final IdSlotMap slotsById;
+    // Only needed while there are tombstones; otherwise task number n is in slot n - 1.
+    private SlotRanks ranks;
+    private int tombstoneCount;
+    private int nextId = 1;
+
+    private FindStrategy findStrategy = FindStrategy.TRIGRAM_INDEX;
+    private WordIndex wordIndex;
+    private TrigramIndex trigramIndex;
+    private DeadlineIndex deadlineIndex;
+    private EventIntervalTree eventTree;
 
     /**
      * Creates an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>(), false);
     }
 
     /**
@@ -30,10 +68,36 @@ public class TaskList {
      * @param tasks initial tasks (non-null)
      */
     public TaskList(List<Task> tasks) {
+        this(tasks, true);
+    }
+
+    private TaskList(List<Task> tasks, boolean isCopied) {
         if (tasks == null) {
             throw new IllegalArgumentException("tasks must not be null");
         }
-        this.tasks = new ArrayList<>(tasks); // defensive copy
+        this.tasks = isCopied ? new ArrayList<>(tasks) : tasks; // defensive copy unless shared
+
+        int count = this.tasks.size();
+        this.ids = new int[Math.max(count, 16)];
+        this.slotsById = new IdSlotMap(count);
+        for (int slot = 0; slot < count; slot++) {
+            if (isCopied) {
+                this.tasks.get(slot).setId(nextId);
+            }
+            ids[slot] = nextId;
+            slotsById.put(nextId++, slot);
+        }
+    }
+
+    /**
+     * Creates a task list that operates directly on the given mutable list instead of a copy,
+     * e.g. a storage-backed list that decodes tasks on demand.
+     *
+     * @param tasks backing list (non-null)
+     * @return task list backed by {@code tasks}
+     */
+    public static TaskList backedBy(List<Task> tasks) {
+        return new TaskList(tasks, false);
     }
 
     /**
@@ -42,7 +106,7 @@ public class TaskList {
      * @return task count
      */
     public int size() {
-        return tasks.size();
+        return tasks.size() - tombstoneCount;
     }
 
     /**
@@ -51,11 +115,11 @@ public class TaskList {
      * @return unmodifiable list of tasks
      */
     public List<Task> getAll() {
-        return Collections.unmodifiableList(tasks);
+        return new LiveTasks();
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list and gives it a new ID.
      *
      * @param task task to add (non-null)
      */
@@ -63,7 +127,32 @@ public class TaskList {
         if (task == null) {
             throw new IllegalArgumentException("task must not be null");
         }
+        int slot = tasks.size();
+        int id = nextId++;
         tasks.add(task);
+        task.setId(id);
+
+        if (slot == ids.length) {
+            ids = Arrays.copyOf(ids, slot * 2);
+        }
+        ids[slot] = id;
+        slotsById.put(id, slot);
+        if (ranks != null) {
+            ranks.append();
+        }
+
+        if (wordIndex != null) {
+            wordIndex.add(id, task);
+        }
+        if (trigramIndex != null) {
+            trigramIndex.add(id, task);
+        }
+        if (deadlineIndex != null && task instanceof Deadline) {
+            deadlineIndex.add(id, (Deadline) task);
+        }
+        if (eventTree != null && task instanceof Event) {
+            eventTree.add(id, (Event) task);
+        }
     }
 
     /**
@@ -74,7 +163,227 @@ public class TaskList {
      * @throws GregException if index is invalid
      */
     public Task delete(int oneIndexedIndex) throws GregException {
-        return tasks.remove(toZeroIndex(oneIndexedIndex));
+        Task removed = tombstone(toSlot(oneIndexedIndex));
+        compactIfWorthwhile();
+        return removed;
+    }
+
+    /**
+     * Deletes the tasks at the given 1-indexed positions as one batch: either all are deleted or,
+     * if any number is invalid, none are. The list is compacted at most once for the batch.
+     *
+     * @param oneIndexedIndices ascending, distinct 1-indexed task numbers
+     * @return deleted tasks, in list order
+     * @throws GregException if any index is invalid
+     */
+    public List<Task> deleteAll(int[] oneIndexedIndices) throws GregException {
+        int[] slots = toSlots(oneIndexedIndices);
+        List<Task> removed = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            removed.add(tombstone(slot));
+        }
+        compactIfWorthwhile();
+        return removed;
+    }
+
+    /**
+     * Marks the tasks at the given 1-indexed positions as done or not done, as one batch.
+     *
+     * @param oneIndexedIndices ascending, distinct 1-indexed task numbers
+     * @param marked new completion status
+     * @return updated tasks, in list order
+     * @throws GregException if any index is invalid; then no task is changed
+     */
+    public List<Task> markAll(int[] oneIndexedIndices, boolean marked) throws GregException {
+        List<Task> updated = new ArrayList<>(oneIndexedIndices.length);
+        for (int slot : toSlots(oneIndexedIndices)) {
+            updated.add(setMarkedAt(slot, marked));
+        }
+        return updated;
+    }
+
+    /**
+     * Returns the 1-indexed numbers of the tasks that are done.
+     *
+     * @return ascending task numbers
+     */
+    public int[] getDoneTaskNumbers() {
+        int[] numbers = new int[16];
+        int count = 0;
+        int number = 0;
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            if (ids[slot] < 0) {
+                continue;
+            }
+            number++;
+            if (taskAt(slot).isMarked()) {
+                if (count == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, count * 2);
+                }
+                numbers[count++] = number;
+            }
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+
+    /**
+     * Returns the task at the given 1-indexed position.
+     *
+     * @param oneIndexedIndex 1-indexed task number
+     * @return the task
+     * @throws GregException if index is invalid
+     */
+    public Task get(int oneIndexedIndex) throws GregException {
+        return taskAt(toSlot(oneIndexedIndex));
+    }
+
+    /**
+     * Puts a deleted task back where it was, with its old ID, e.g. to undo a delete.
+     * <p>
+     * While the task's tombstone is still in the list this takes O(log n) and moves no other task.
+     * If the list has been compacted since, the task is inserted, shifting the tasks after it.
+     *
+     * @param task a task deleted from this list and not restored since
+     * @throws GregException if the task was never in this list or is still in it
+     */
+    public void restore(Task task) throws GregException {
+        checkRestorable(task);
+        restoreChecked(task);
+    }
+
+    /**
+     * Puts several deleted tasks back where they were, as {@link #restore(Task)} does.
+     *
+     * @param deleted tasks deleted from this list and not restored since, each once
+     * @throws GregException if any task cannot be restored; then no task is restored
+     */
+    public void restoreAll(List<Task> deleted) throws GregException {
+        int[] restoredIds = new int[deleted.size()];
+        for (int i = 0; i < restoredIds.length; i++) {
+            checkRestorable(deleted.get(i));
+            restoredIds[i] = deleted.get(i).getId();
+        }
+        Arrays.sort(restoredIds);
+        for (int i = 1; i < restoredIds.length; i++) {
+            if (restoredIds[i] == restoredIds[i - 1]) {
+                throw new GregException(ERROR_NOT_RESTORABLE);
+            }
+        }
+        for (Task task : deleted) {
+            restoreChecked(task);
+        }
+    }
+
+    private void checkRestorable(Task task) throws GregException {
+        int id = task.getId();
+        if (id <= 0 || id >= nextId || slotsById.get(id) >= 0) {
+            throw new GregException(ERROR_NOT_RESTORABLE);
+        }
+    }
+
+    private void restoreChecked(Task task) {
+        int id = task.getId();
+        int slot = slotFor(id);
+        if (slot < tasks.size() && ids[slot] == -id) {
+            tasks.set(slot, task);
+            ids[slot] = id;
+            slotsById.put(id, slot);
+            ranks.revive(slot);
+            tombstoneCount--;
+        } else {
+            insertAt(slot, id, task);
+        }
+
+        if (wordIndex != null) {
+            wordIndex.add(id, task);
+        }
+        if (trigramIndex != null) {
+            trigramIndex.add(id, task);
+        }
+        if (deadlineIndex != null && task instanceof Deadline) {
+            deadlineIndex.add(id, (Deadline) task);
+        }
+        if (eventTree != null && task instanceof Event) {
+            eventTree.add(id, (Event) task);
+        }
+    }
+
+    /**
+     * Returns the slot holding the task or tombstone with the given ID or, if there is none, the
+     * slot where that ID belongs.
+     */
+    private int slotFor(int id) {
+        int low = 0;
+        int high = tasks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Math.abs(ids[mid]) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Inserts a task into a new slot, shifting later slots up by one.
+     */
+    private void insertAt(int slot, int id, Task task) {
+        int slotCount = tasks.size();
+        tasks.add(slot, task);
+        if (slotCount == ids.length) {
+            ids = Arrays.copyOf(ids, slotCount * 2);
+        }
+        System.arraycopy(ids, slot, ids, slot + 1, slotCount - slot);
+        ids[slot] = id;
+        for (int s = slot; s <= slotCount; s++) {
+            if (ids[s] > 0) {
+                slotsById.put(ids[s], s);
+            }
+        }
+        if (ranks != null) {
+            ranks = new SlotRanks(ids, slotCount + 1);
+        }
+    }
+
+    /**
+     * Leaves a tombstone in a live slot and drops its task from the indexes.
+     *
+     * @return the task that was in the slot
+     */
+    private Task tombstone(int slot) {
+        Task removed = taskAt(slot);
+        int id = ids[slot];
+
+        if (ranks == null) {
+            ranks = new SlotRanks(ids, tasks.size());
+        }
+        tasks.set(slot, null);
+        ids[slot] = -id;
+        slotsById.remove(id);
+        ranks.kill(slot);
+        tombstoneCount++;
+
+        if (wordIndex != null) {
+            wordIndex.remove(id, removed);
+        }
+        if (trigramIndex != null) {
+            trigramIndex.remove();
+        }
+        if (deadlineIndex != null && removed instanceof Deadline) {
+            deadlineIndex.remove(id, (Deadline) removed);
+        }
+        if (eventTree != null && removed instanceof Event) {
+            eventTree.remove(id, (Event) removed);
+        }
+        return removed;
+    }
+
+    private void compactIfWorthwhile() {
+        if (tombstoneCount >= MIN_TOMBSTONES_TO_COMPACT && tombstoneCount * 4 >= size()) {
+            compact();
+        }
     }
 
     /**
@@ -99,6 +408,21 @@ public class TaskList {
         return setMarked(oneIndexedIndex, false);
     }
 
+    /**
+     * Returns the current 1-indexed task number of the task with the given ID.
+     *
+     * @param id task ID
+     * @return 1-indexed task number
+     * @throws GregException if no task in the list has this ID
+     */
+    public int toTaskNumber(int id) throws GregException {
+        int slot = slotsById.get(id);
+        if (slot < 0) {
+            throw new GregException(String.format(ERROR_UNKNOWN_TASK_ID, id));
+        }
+        return ranks == null ? slot + 1 : ranks.rank(slot);
+    }
+
     /**
      * Finds tasks whose description contains ANY word in the query (case-insensitive).
      *
@@ -107,9 +431,170 @@ public class TaskList {
      */
     public List<Task> find(String query) {
         String[] terms = normalizeQuery(query);
+        if (terms.length == 0) {
+            return new ArrayList<>();
+        }
+
+        switch (findStrategy) {
+            case WORD_INDEX:
+                return matchingTasksOf(getWordIndex().find(terms), null);
+
+            case TRIGRAM_INDEX: {
+                int[] candidates = getTrigramIndex().candidates(terms);
+                return candidates == null ? findLinear(terms) : matchingTasksOf(candidates, terms);
+            }
+
+            default:
+                return findLinear(terms);
+        }
+    }
+
+    /**
+     * Finds the {@code limit} tasks that best match the query, best first.
+     * <p>
+     * A task matches a term as in {@link #find(String)}. Tasks that match more distinct terms
+     * rank first; among those, tasks matching rarer terms rank first; remaining ties go to the
+     * most recently added task. Apart from the IDs matching each term, scoring keeps only the
+     * best {@code limit} matches and allocates nothing more per match, however many tasks match.
+     *
+     * @param query search query
+     * @param limit maximum number of tasks to return (positive)
+     * @return the best matches and the total number of matches
+     */
+    public RankedMatches findTop(String query, int limit) {
+        String[] terms = Arrays.stream(normalizeQuery(query)).distinct().toArray(String[]::new);
+        int[][] idsByTerm = new int[terms.length][];
+        double[] weights = new double[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            idsByTerm[t] = idsMatching(terms[t]);
+            // Rarer terms weigh more, like inverse document frequency.
+            weights[t] = Math.log(1 + (double) size() / Math.max(idsByTerm[t].length, 1));
+        }
+
+        // Worst of the best matches at the head, so it is the one replaced by a better match.
+        PriorityQueue<ScoredTask> best = new PriorityQueue<>(Math.max(1, Math.min(limit, size())));
+        int[] next = new int[terms.length];
+        int matchCount = 0;
+        while (true) {
+            int id = Integer.MAX_VALUE;
+            for (int t = 0; t < terms.length; t++) {
+                if (next[t] < idsByTerm[t].length) {
+                    id = Math.min(id, idsByTerm[t][next[t]]);
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+
+            int termCount = 0;
+            double weight = 0;
+            for (int t = 0; t < terms.length; t++) {
+                if (next[t] < idsByTerm[t].length && idsByTerm[t][next[t]] == id) {
+                    termCount++;
+                    weight += weights[t];
+                    next[t]++;
+                }
+            }
+            matchCount++;
+
+            if (best.size() < limit) {
+                best.add(new ScoredTask(id, termCount, weight));
+            } else if (best.peek().isBeatenBy(id, termCount, weight)) {
+                // The dropped match's object is reused, so a full queue allocates nothing.
+                ScoredTask replaced = best.poll();
+                replaced.set(id, termCount, weight);
+                best.add(replaced);
+            }
+        }
+
+        List<Task> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(taskAt(slotsById.get(best.poll().id)));
+        }
+        Collections.reverse(ranked);
+        return new RankedMatches(ranked, matchCount);
+    }
+
+    /**
+     * Finds the deadlines due on or between two dates, ordered by due date and time.
+     *
+     * @param from first date
+     * @param to last date
+     * @return deadlines due in the range (possibly empty)
+     */
+    public List<Task> findDue(LocalDate from, LocalDate to) {
+        return tasksOf(getDeadlineIndex().find(TimeKeys.of(from, 0), TimeKeys.lastOf(to), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Finds the next deadlines due at or after a moment, ordered by due date and time. A deadline
+     * without a time counts as due at the end of its day.
+     *
+     * @param now the moment to look ahead from
+     * @param count maximum number of deadlines to return
+     * @return up to {@code count} deadlines
+     */
+    public List<Task> findUpcoming(LocalDateTime now, int count) {
+        long fromKey = TimeKeys.of(now.toLocalDate(), now.getHour() * 60 + now.getMinute());
+        return tasksOf(getDeadlineIndex().find(fromKey, Long.MAX_VALUE, count));
+    }
+
+    /**
+     * Finds the events in the list whose time range overlaps that of {@code event}, ordered by
+     * start. Events that only touch, one ending when the other starts, do not clash.
+     *
+     * @param event an event, usually one about to be added
+     * @return clashing events other than {@code event} itself (possibly empty)
+     */
+    public List<Task> findClashes(Event event) {
+        List<Task> clashes = tasksOf(getEventTree().findOverlapping(EventIntervalTree.startOf(event),
+                EventIntervalTree.endOf(event)));
+        clashes.remove(event);
+        return clashes;
+    }
+
+    /**
+     * Finds the events taking place at any time on a date, ordered by start.
+     *
+     * @param date the date
+     * @return events overlapping the date (possibly empty)
+     */
+    public List<Task> findEventsOn(LocalDate date) {
+        return tasksOf(getEventTree().findOverlapping(TimeKeys.of(date, 0), TimeKeys.of(date.plusDays(1), 0)));
+    }
+
+    /**
+     * Selects how {@link #find(String)} searches; all strategies return the same results.
+     *
+     * @param findStrategy search strategy
+     */
+    public void setFindStrategy(FindStrategy findStrategy) {
+        this.findStrategy = findStrategy;
+    }
+
+    /**
+     * Builds the indexes used by queries that are not built yet, and rebuilds a stale trigram
+     * index. Until the list next changes, queries then only read it, so several of them may
+     * run at once.
+     */
+    public void buildIndexes() {
+        getDeadlineIndex();
+        getEventTree();
+        if (findStrategy == FindStrategy.TRIGRAM_INDEX) {
+            getTrigramIndex();
+        } else if (findStrategy == FindStrategy.WORD_INDEX) {
+            getWordIndex();
+        }
+    }
+
+    private List<Task> findLinear(String[] terms) {
         List<Task> matches = new ArrayList<>();
 
-        for (Task task : tasks) {
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            if (ids[slot] < 0) {
+                continue;
+            }
+            Task task = taskAt(slot);
             if (matchesAnyTerm(task, terms)) {
                 matches.add(task);
             }
@@ -117,18 +602,182 @@ public class TaskList {
         return matches;
     }
 
+    /**
+     * Resolves ascending IDs to the tasks still in the list, in list order.
+     *
+     * @param candidateIds ascending task IDs, possibly of deleted tasks
+     * @param terms terms each task must be checked against, or null if the IDs are exact
+     */
+    private List<Task> matchingTasksOf(int[] candidateIds, String[] terms) {
+        List<Task> matches = new ArrayList<>();
+        for (int id : candidateIds) {
+            int slot = slotsById.get(id);
+            if (slot < 0) {
+                continue;
+            }
+            Task task = taskAt(slot);
+            if (terms == null || matchesAnyTerm(task, terms)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the ascending IDs of the tasks whose description contains the term.
+     */
+    private int[] idsMatching(String term) {
+        String[] terms = {term};
+        int[] candidates = findStrategy == FindStrategy.TRIGRAM_INDEX ? getTrigramIndex().candidates(terms) : null;
+        if (candidates == null) {
+            candidates = Arrays.copyOf(ids, tasks.size());
+        }
+
+        int count = 0;
+        for (int id : candidates) {
+            int slot = slotsById.get(id);
+            if (slot >= 0 && matchesAnyTerm(taskAt(slot), terms)) {
+                candidates[count++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private List<Task> tasksOf(int[] ids) {
+        List<Task> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            found.add(taskAt(slotsById.get(id)));
+        }
+        return found;
+    }
+
+    private DeadlineIndex getDeadlineIndex() {
+        if (deadlineIndex == null) {
+            deadlineIndex = new DeadlineIndex();
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                if (ids[slot] < 0) {
+                    continue;
+                }
+                Task task = taskAt(slot);
+                if (task instanceof Deadline) {
+                    deadlineIndex.add(ids[slot], (Deadline) task);
+                }
+            }
+        }
+        return deadlineIndex;
+    }
+
+    private EventIntervalTree getEventTree() {
+        if (eventTree == null) {
+            eventTree = new EventIntervalTree();
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                if (ids[slot] < 0) {
+                    continue;
+                }
+                Task task = taskAt(slot);
+                if (task instanceof Event) {
+                    eventTree.add(ids[slot], (Event) task);
+                }
+            }
+        }
+        return eventTree;
+    }
+
+    private TrigramIndex getTrigramIndex() {
+        if (trigramIndex == null || trigramIndex.isStale()) {
+            trigramIndex = new TrigramIndex();
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                if (ids[slot] > 0) {
+                    trigramIndex.add(ids[slot], taskAt(slot));
+                }
+            }
+        }
+        return trigramIndex;
+    }
+
+    private WordIndex getWordIndex() {
+        if (wordIndex == null) {
+            wordIndex = new WordIndex();
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                if (ids[slot] > 0) {
+                    wordIndex.add(ids[slot], taskAt(slot));
+                }
+            }
+        }
+        return wordIndex;
+    }
+
+    /**
+     * Removes all tombstones in one pass, keeping the order of the remaining tasks. Tombstones are
+     * removed as elements rather than with a predicate, so a lazily loaded list need not decode
+     * every task to find them.
+     */
+    private void compact() {
+        tasks.removeAll(TOMBSTONES);
+
+        int live = 0;
+        for (int slot = 0; slot < ids.length && live < tasks.size(); slot++) {
+            if (ids[slot] > 0) {
+                ids[live++] = ids[slot];
+            }
+        }
+        Arrays.fill(ids, live, ids.length, 0);
+
+        slotsById.clear();
+        for (int slot = 0; slot < live; slot++) {
+            slotsById.put(ids[slot], slot);
+        }
+        ranks = null;
+        tombstoneCount = 0;
+    }
+
+    /**
+     * Returns the task in a live slot, with its ID filled in.
+     * <p>
+     * Tasks get their ID when they enter the list, so reading a task does not write to it, and
+     * concurrent queries may share the list. Only a backing list that hands out a fresh object for
+     * the same task, such as ColumnarTaskStore, needs the ID filled in here, on an object that
+     * no other reader has seen.
+     */
+    private Task taskAt(int slot) {
+        Task task = tasks.get(slot);
+        if (task.getId() != ids[slot]) {
+            task.setId(ids[slot]);
+        }
+        return task;
+    }
+
     private Task setMarked(int oneIndexedIndex, boolean marked) throws GregException {
-        Task task = tasks.get(toZeroIndex(oneIndexedIndex));
+        return setMarkedAt(toSlot(oneIndexedIndex), marked);
+    }
+
+    private Task setMarkedAt(int slot, boolean marked) {
+        Task task = taskAt(slot);
         task.mark(marked);
+        tasks.set(slot, task); // the backing list may have handed out a copy, e.g. ColumnarTaskStore
         return task;
     }
 
-    private int toZeroIndex(int oneIndexedIndex) throws GregException {
+    private int toSlot(int oneIndexedIndex) throws GregException {
         int idx = oneIndexedIndex - 1;
-        if (idx < 0 || idx >= tasks.size()) {
+        if (idx < 0 || idx >= size()) {
             throw new GregException(ERROR_INVALID_TASK_NUMBER);
         }
-        return idx;
+        return ranks == null ? idx : ranks.select(idx);
+    }
+
+    /**
+     * Resolves a batch of task numbers to slots before any of them is changed.
+     */
+    private int[] toSlots(int[] oneIndexedIndices) throws GregException {
+        int[] slots = new int[oneIndexedIndices.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (i > 0 && oneIndexedIndices[i] <= oneIndexedIndices[i - 1]) {
+                throw new GregException(ERROR_INVALID_TASK_NUMBER);
+            }
+            slots[i] = toSlot(oneIndexedIndices[i]);
+        }
+        return slots;
     }
 
     private String[] normalizeQuery(String query) {
@@ -152,4 +801,64 @@ public class TaskList {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * A task ID with its ranking score; orders from worst to best match.
+     */
+    private static class ScoredTask implements Comparable<ScoredTask> {
+        private int id;
+        private int termCount;
+        private double weight;
+
+        ScoredTask(int id, int termCount, double weight) {
+            set(id, termCount, weight);
+        }
+
+        void set(int id, int termCount, double weight) {
+            this.id = id;
+            this.termCount = termCount;
+            this.weight = weight;
+        }
+
+        /**
+         * Returns whether a match with the given score ranks above this one.
+         */
+        boolean isBeatenBy(int id, int termCount, double weight) {
+            return compare(termCount, weight, id, this.termCount, this.weight, this.id) > 0;
+        }
+
+        @Override
+        public int compareTo(ScoredTask other) {
+            return compare(termCount, weight, id, other.termCount, other.weight, other.id);
+        }
+
+        private static int compare(int termCount, double weight, int id, int otherTermCount, double otherWeight,
+                int otherId) {
+            if (termCount != otherTermCount) {
+                return Integer.compare(termCount, otherTermCount);
+            }
+            if (weight != otherWeight) {
+                return Double.compare(weight, otherWeight);
+            }
+            return Integer.compare(id, otherId);
+        }
+    }
+
+    /**
+     * Read-only view of the tasks in list order, skipping tombstones.
+     */
+    private class LiveTasks extends AbstractList<Task> implements RandomAccess {
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return taskAt(ranks == null ? index : ranks.select(index));
+        }
+
+        @Override
+        public int size() {
+            return TaskList.this.size();
+        }
+    }
+}
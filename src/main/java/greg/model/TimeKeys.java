@@ -0,0 +1,52 @@
+package greg.model;
+
+import java.time.LocalDate;
+
+/**
+ * Encodes a date and minute of the day as a single {@code long} that sorts chronologically:
+ * the epoch day times {@link #KEYS_PER_DAY} plus the minute.
+ */
+class TimeKeys {
+
+    /** Keys per day; larger than any minute of day that an {@code HHmm} time can spell. */
+    static final long KEYS_PER_DAY = 8192;
+
+    private TimeKeys() {
+    }
+
+    /**
+     * Returns the key of a moment on a date.
+     *
+     * @param date the date
+     * @param minuteOfDay minutes since midnight
+     * @return time key
+     */
+    static long of(LocalDate date, int minuteOfDay) {
+        return date.toEpochDay() * KEYS_PER_DAY + minuteOfDay;
+    }
+
+    /**
+     * Returns the key of a date and an optional {@code HHmm} time.
+     *
+     * @param date the date
+     * @param time time as HHmm, or an empty string for the start of the day
+     * @return time key
+     */
+    static long of(LocalDate date, String time) {
+        if (time.isEmpty()) {
+            return of(date, 0);
+        }
+        int hhmm = Integer.parseInt(time);
+        return of(date, hhmm / 100 * 60 + hhmm % 100);
+    }
+
+    /**
+     * Returns the last key of a date, after the key of every {@code HHmm} time on it.
+     *
+     * @param date the date
+     * @return largest time key of the date
+     */
+    static long lastOf(LocalDate date) {
+        return of(date, (int) KEYS_PER_DAY - 1);
+    }
+}
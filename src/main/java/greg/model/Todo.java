@@ -17,6 +17,10 @@ public class Todo extends Task {
         super(description);
     }
 
+    Todo(String description, boolean isPooled) throws GregException {
+        super(description, isPooled);
+    }
+
     @Override
     public String toString() {
         return "[T]" + super.toString();
@@ -0,0 +1,147 @@
+package greg.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index from the three-character substrings (trigrams) of lowercased descriptions to the IDs of
+ * the tasks containing them.
+ * <p>
+ * A description that contains a term also contains every trigram of that term, so intersecting
+ * the postings of a term's trigrams gives a small set of candidates that includes every match.
+ * Candidates still have to be checked against the description; terms shorter than three
+ * characters have no trigrams and cannot be narrowed down this way.
+ * <p>
+ * Removing a task leaves its postings in place; the IDs of removed tasks are skipped when
+ * candidates are resolved, until there are enough of them that the index is worth rebuilding
+ * (see {@link #isStale()}).
+ * <p>
+ * Postings can only be appended to, so a restored task, whose ID is older than the last one
+ * posted, is not split into trigrams: it is kept aside and returned as a candidate for every
+ * query.
+ */
+class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, CompressedPostingList> postings = new HashMap<>();
+    private final PostingList restoredIds = new PostingList();
+    private int lastId;
+    private int liveCount;
+    private int removedCount;
+
+    /**
+     * Indexes a task added to the list.
+     *
+     * @param id ID of the task; larger than any indexed so far unless the task was restored
+     * @param task added task
+     */
+    void add(int id, Task task) {
+        liveCount++;
+        if (id < lastId) {
+            restoredIds.add(id);
+            return;
+        }
+        lastId = id;
+
+        String text = task.getDescription().toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            CompressedPostingList list = postings.computeIfAbsent(gramAt(text, i),
+                    g -> new CompressedPostingList());
+            // A trigram repeated within one description is only posted once.
+            if (list.size() == 0 || list.last() != id) {
+                list.add(id);
+            }
+        }
+    }
+
+    /**
+     * Records that a task was removed; its postings are left to be skipped.
+     */
+    void remove() {
+        liveCount--;
+        removedCount++;
+    }
+
+    /**
+     * Returns whether removed tasks make up most of the postings, so the index should be rebuilt.
+     *
+     * @return true if the index should be rebuilt
+     */
+    boolean isStale() {
+        return removedCount > 1024 && removedCount > liveCount;
+    }
+
+    /**
+     * Returns the IDs of the tasks that may contain any of the terms, including removed tasks.
+     *
+     * @param terms lowercased query terms without whitespace
+     * @return ascending IDs of the candidates, or null if some term is too short to be looked up
+     *         and every task is a candidate
+     */
+    int[] candidates(String[] terms) {
+        int[] union = new int[0];
+        for (String term : terms) {
+            if (term.length() < GRAM_LENGTH) {
+                return null;
+            }
+            int[] matches = candidatesOf(term);
+            union = union.length == 0 ? matches : merge(union, matches);
+        }
+        if (!restoredIds.isEmpty()) {
+            int[] restored = new int[restoredIds.size()];
+            restoredIds.copyTo(restored, 0);
+            union = merge(union, restored);
+        }
+        return union;
+    }
+
+    /**
+     * Intersects the postings of the term's trigrams, starting from the shortest.
+     */
+    private int[] candidatesOf(String term) {
+        int gramCount = term.length() - GRAM_LENGTH + 1;
+        CompressedPostingList[] lists = new CompressedPostingList[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            lists[i] = postings.get(gramAt(term, i));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+
+        int[] values = lists[0].toArray();
+        int count = values.length;
+        for (int i = 1; i < gramCount && count > 0; i++) {
+            if (lists[i] != lists[i - 1]) {
+                count = lists[i].retainIn(values, count);
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || i < a.length && a[i] < b[j]) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    private static long gramAt(String text, int from) {
+        return (long) text.charAt(from) << 32 | (long) text.charAt(from + 1) << 16 | text.charAt(from + 2);
+    }
+}
@@ -0,0 +1,100 @@
+package greg.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from lowercased description words to the IDs of the tasks containing them.
+ * <p>
+ * Query terms never contain whitespace, so a term occurs in a description exactly when it
+ * occurs in one of the description's whitespace-separated words. A query therefore only has
+ * to check each distinct word once, however many tasks share it, and then union the postings
+ * of the words that matched.
+ */
+class WordIndex {
+
+    private static final String WHITESPACE_REGEX = "\\s+";
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * Indexes a task added to the list.
+     *
+     * @param id ID of the task; larger than any indexed so far unless the task was restored
+     * @param task added task
+     */
+    void add(int id, Task task) {
+        for (String word : wordsOf(task)) {
+            postings.computeIfAbsent(word, w -> new PostingList()).add(id);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param id ID of the task
+     * @param task the task being removed
+     */
+    void remove(int id, Task task) {
+        for (String word : wordsOf(task)) {
+            PostingList list = postings.get(word);
+            list.remove(id);
+            if (list.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the tasks whose description contains any of the terms.
+     *
+     * @param terms lowercased query terms without whitespace
+     * @return ascending IDs of the matching tasks, without duplicates
+     */
+    int[] find(String[] terms) {
+        int[] matches = new int[16];
+        int count = 0;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (!containsAny(entry.getKey(), terms)) {
+                continue;
+            }
+            PostingList list = entry.getValue();
+            if (count + list.size() > matches.length) {
+                matches = Arrays.copyOf(matches, Math.max(count + list.size(), matches.length * 2));
+            }
+            list.copyTo(matches, count);
+            count += list.size();
+        }
+
+        Arrays.sort(matches, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || matches[i] != matches[i - 1]) {
+                matches[distinct++] = matches[i];
+            }
+        }
+        return Arrays.copyOf(matches, distinct);
+    }
+
+    private static boolean containsAny(String word, String[] terms) {
+        for (String term : terms) {
+            if (!term.isEmpty() && word.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> wordsOf(Task task) {
+        Set<String> words = new HashSet<>();
+        for (String word : task.getDescription().toLowerCase().split(WHITESPACE_REGEX)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,244 @@
+package greg.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Deadline;
+import greg.model.Event;
+import greg.model.Task;
+import greg.model.Todo;
+
+/**
+ * A compact, versioned binary save format that needs no text parsing to load.
+ * <pre>
+ * header:   int magic "GREG" | byte version | int record count
+ * record:   byte type ('T', 'D' or 'E') | byte flags (bit 0 = done)
+ *           | int length | UTF-8 description bytes
+ * deadline: int epoch-day | short time
+ * event:    int epoch-day | short time | int epoch-day | short time
+ * </pre>
+ * A time is stored as its minute of the day, or -1 when absent. Times the text format
+ * accepts but that are not valid clock times (e.g. "2599") are stored as 1440 + HHmm so
+ * they survive a round trip unchanged.
+ */
+class BinarySaveFormat implements SaveFormat {
+
+    private static final int MAGIC = 0x47524547; // "GREG"
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+    private static final int FLAG_DONE = 1;
+
+    private static final short NO_TIME = -1;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int HEADER_BYTES = 4 + 1 + 4;
+    // type, flags and description length: even a todo with an empty description needs these.
+    private static final int MIN_RECORD_BYTES = 1 + 1 + 4;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Override
+    public void write(List<Task> tasks, WritableByteChannel channel) throws IOException {
+        // The stream is only flushed, not closed: closing it would close the caller's channel.
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+        out.flush();
+    }
+
+    @Override
+    public List<Task> read(File source) throws GregException {
+        if (source.length() == 0) {
+            return new ArrayList<>();
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE))) {
+            return readTasks(in, source, source.length());
+        } catch (EOFException | DateTimeException e) {
+            throw new GregException("Corrupted binary save file: " + source.getPath());
+        } catch (IOException e) {
+            throw new GregException("Failed to read tasks from file: " + source.getPath());
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(typeOf(task));
+        out.writeByte(task.isMarked() ? FLAG_DONE : 0);
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(description.length);
+        out.write(description);
+
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            writeDateTime(out, deadline.getByDate(), deadline.getByTime());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            writeDateTime(out, event.getFromDate(), event.getFromTime());
+            writeDateTime(out, event.getToDate(), event.getToTime());
+        }
+    }
+
+    /**
+     * Reads the tasks of a binary save file of {@code fileLength} bytes. Counts and lengths read
+     * from the file are checked against its length before anything is allocated for them, so a
+     * corrupted header is reported as such rather than exhausting memory.
+     */
+    private static List<Task> readTasks(DataInputStream in, File source, long fileLength)
+            throws IOException, GregException {
+        if (in.readInt() != MAGIC) {
+            throw new GregException("Not a binary save file: " + source.getPath());
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new GregException("Unsupported binary save file version " + version + ": " + source.getPath());
+        }
+
+        int count = in.readInt();
+        if (count < 0 || count > (fileLength - HEADER_BYTES) / MIN_RECORD_BYTES) {
+            throw new GregException("Corrupted binary save file: " + source.getPath());
+        }
+
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(in, source, fileLength));
+        }
+        return tasks;
+    }
+
+    private static Task readTask(DataInputStream in, File source, long fileLength)
+            throws IOException, GregException {
+        byte type = in.readByte();
+        boolean isDone = (in.readByte() & FLAG_DONE) != 0;
+        String description = readDescription(in, source, fileLength);
+
+        Task task;
+        switch (type) {
+            case TYPE_TODO:
+                task = new Todo(description);
+                break;
+
+            case TYPE_DEADLINE:
+                task = new Deadline(description, readDate(in), readTime(in));
+                break;
+
+            case TYPE_EVENT:
+                task = new Event(description, readDate(in), readTime(in), readDate(in), readTime(in));
+                break;
+
+            default:
+                throw new GregException("Unknown task type in save file.");
+        }
+
+        task.mark(isDone);
+        return task;
+    }
+
+    private static String readDescription(DataInputStream in, File source, long fileLength)
+            throws IOException, GregException {
+        int length = in.readInt();
+        if (length < 0 || length > fileLength) {
+            throw new GregException("Corrupted binary save file: " + source.getPath());
+        }
+        return new String(readBytes(in, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    private static byte typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return TYPE_DEADLINE;
+        }
+        if (task instanceof Event) {
+            return TYPE_EVENT;
+        }
+        return TYPE_TODO;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDate date, String time) throws IOException {
+        out.writeInt((int) date.toEpochDay());
+        out.writeShort(encodeTime(time));
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        return LocalDate.ofEpochDay(in.readInt());
+    }
+
+    private static String readTime(DataInputStream in) throws IOException {
+        return decodeTime(in.readShort());
+    }
+
+    /**
+     * Encodes an HHmm time (or "") as a short.
+     *
+     * @param time four-digit time or empty string
+     * @return minute of day, 1440 + HHmm for out-of-range times, or -1 if absent
+     */
+    static short encodeTime(String time) {
+        if (time.isEmpty()) {
+            return NO_TIME;
+        }
+
+        int hhmm = Integer.parseInt(time);
+        int hours = hhmm / 100;
+        int minutes = hhmm % 100;
+        if (hours < 24 && minutes < 60) {
+            return (short) (hours * 60 + minutes);
+        }
+        return (short) (MINUTES_PER_DAY + hhmm);
+    }
+
+    /**
+     * Decodes a short produced by {@link #encodeTime(String)}.
+     *
+     * @param encoded encoded time
+     * @return four-digit HHmm time, or "" if absent
+     */
+    static String decodeTime(short encoded) {
+        if (encoded < 0) {
+            return "";
+        }
+
+        int hhmm = encoded >= MINUTES_PER_DAY
+                ? encoded - MINUTES_PER_DAY
+                : (encoded / 60) * 100 + encoded % 60;
+        char[] digits = {
+            (char) ('0' + hhmm / 1000),
+            (char) ('0' + hhmm / 100 % 10),
+            (char) ('0' + hhmm / 10 % 10),
+            (char) ('0' + hhmm % 10)
+        };
+        return new String(digits);
+    }
+}
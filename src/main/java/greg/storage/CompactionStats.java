@@ -0,0 +1,64 @@
+package greg.storage;
+
+/**
+ * Running totals describing how journal compactions have performed.
+ * <p>
+ * Updated by the compaction thread and read from the UI thread, so all accessors are synchronized.
+ */
+public class CompactionStats {
+
+    private int compactionCount;
+    private long lastDurationMillis;
+    private long totalDurationMillis;
+    private long lastBytesReclaimed;
+    private long totalBytesReclaimed;
+    private String lastError = "";
+
+    /**
+     * Records a successful compaction.
+     *
+     * @param durationMillis wall-clock time the compaction took
+     * @param bytesReclaimed bytes freed on disk (old snapshot and journal minus new snapshot)
+     */
+    synchronized void recordSuccess(long durationMillis, long bytesReclaimed) {
+        compactionCount++;
+        lastDurationMillis = durationMillis;
+        totalDurationMillis += durationMillis;
+        lastBytesReclaimed = bytesReclaimed;
+        totalBytesReclaimed += bytesReclaimed;
+        lastError = "";
+    }
+
+    /**
+     * Records a failed compaction; the journal is kept and compacted again later.
+     *
+     * @param message reason for the failure
+     */
+    synchronized void recordFailure(String message) {
+        lastError = message;
+    }
+
+    public synchronized int getCompactionCount() {
+        return compactionCount;
+    }
+
+    public synchronized long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    public synchronized long getTotalDurationMillis() {
+        return totalDurationMillis;
+    }
+
+    public synchronized long getLastBytesReclaimed() {
+        return lastBytesReclaimed;
+    }
+
+    public synchronized long getTotalBytesReclaimed() {
+        return totalBytesReclaimed;
+    }
+
+    public synchronized String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,13 @@
+package greg.storage;
+
+/**
+ * Controls when journaled task mutations are written to disk.
+ */
+public enum DurabilityMode {
+    /** Every mutation is written before the command returns. */
+    PER_COMMAND,
+    /** Mutations are buffered and written by a background thread at most once per flush interval. */
+    PER_INTERVAL,
+    /** Mutations are buffered until the storage is closed, e.g. on {@code bye}. */
+    ON_EXIT
+}
@@ -0,0 +1,161 @@
+package greg.storage;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * Folds the task journal back into the snapshot on a background thread.
+ * <p>
+ * When the active journal reaches a record-count or size threshold it is rotated into a
+ * segment file, and a single worker thread rebuilds the snapshot from the snapshot on disk
+ * plus that segment. The in-memory task list is never touched, so callers only pay for
+ * the rename and keep appending to a fresh journal while the rebuild runs.
+ */
+class JournalCompactor {
+
+    private static final String SEGMENT_SUFFIX = ".compacting";
+    private static final String TEMP_SUFFIX = ".compacting.tmp";
+
+    private final Storage storage;
+    private final File snapshot;
+    private final TaskJournal journal;
+    private final TaskJournal segment;
+    private final File temp;
+    private final int maxRecords;
+    private final long maxBytes;
+
+    private final ExecutorService executor;
+    private final CompactionStats stats = new CompactionStats();
+
+    private Future<?> running;
+    private int retryAfterRecords;
+
+    /**
+     * Creates a compactor for the given snapshot and its active journal.
+     *
+     * @param storage storage used to read and write snapshots
+     * @param snapshot snapshot file
+     * @param journal active journal appended to by {@link Storage}
+     * @param journalPath path of the active journal, used to name the segment file
+     * @param maxRecords number of journal records that triggers a compaction
+     * @param maxBytes journal size in bytes that triggers a compaction
+     */
+    JournalCompactor(Storage storage, File snapshot, TaskJournal journal, String journalPath,
+            int maxRecords, long maxBytes) {
+        this.storage = storage;
+        this.snapshot = snapshot;
+        this.journal = journal;
+        this.segment = new TaskJournal(new File(journalPath + SEGMENT_SUFFIX), snapshot);
+        this.temp = new File(snapshot.getPath() + TEMP_SUFFIX);
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "greg-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the segment holding records that are being (or still need to be) compacted.
+     *
+     * @return journal segment, replayed before the active journal when loading
+     */
+    TaskJournal getSegment() {
+        return segment;
+    }
+
+    CompactionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Starts a background compaction if the active journal has crossed a threshold
+     * and no compaction is already running.
+     */
+    synchronized void maybeCompact() {
+        if (isRunning() || !isOverThreshold()) {
+            return;
+        }
+
+        try {
+            // A segment left behind by an earlier failure or crash is compacted first.
+            if (!segment.exists()) {
+                journal.rotateTo(segment);
+            }
+        } catch (GregException e) {
+            recordFailure(e);
+            return;
+        }
+
+        running = executor.submit(this::compact);
+    }
+
+    /**
+     * Blocks until any running compaction has finished.
+     */
+    void awaitIdle() {
+        Future<?> current;
+        synchronized (this) {
+            current = running;
+        }
+        if (current == null) {
+            return;
+        }
+
+        try {
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Failures are already recorded in the stats by compact().
+        }
+    }
+
+    private boolean isRunning() {
+        return running != null && !running.isDone();
+    }
+
+    private boolean isOverThreshold() {
+        int records = journal.getRecordCount();
+        if (records < retryAfterRecords) {
+            return false;
+        }
+        return records >= maxRecords || journal.getSizeBytes() >= maxBytes;
+    }
+
+    private void compact() {
+        long start = System.nanoTime();
+        long bytesBefore = snapshot.length() + segment.getSizeBytes();
+
+        try {
+            List<Task> tasks = storage.readTasks(snapshot);
+            segment.replay(tasks);
+            storage.writeTasks(temp, tasks);
+            journal.swapSnapshot(temp);
+            segment.clear();
+        } catch (GregException e) {
+            recordFailure(e);
+            return;
+        }
+
+        synchronized (this) {
+            retryAfterRecords = 0;
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        stats.recordSuccess(durationMillis, bytesBefore - snapshot.length());
+    }
+
+    private synchronized void recordFailure(GregException e) {
+        // Back off until another full batch of records has accumulated.
+        retryAfterRecords = journal.getRecordCount() + maxRecords;
+        stats.recordFailure(e.getMessage());
+    }
+}
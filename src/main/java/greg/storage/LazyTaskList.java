@@ -0,0 +1,329 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import greg.exception.GregException;
+import greg.exception.UnreadableTaskException;
+import greg.model.Task;
+
+/**
+ * A task list backed by a text save file that decodes tasks only when they are accessed.
+ * <p>
+ * Opening the list only records where each task line of the file starts. Tasks are decoded a page
+ * of lines at a time on first access and kept in a bounded LRU cache, so startup time and heap
+ * use stay flat however large the file is. Tasks that are added, or that are changed and then
+ * evicted from the cache, are pinned in memory so no change is lost.
+ * <p>
+ * The file is kept open and read by position, so the list still sees the original content
+ * after the snapshot is replaced by a save or compaction. A line that turns out to be corrupted
+ * is reported with an {@link UnreadableTaskException} when it is first accessed.
+ * <p>
+ * Not thread-safe.
+ */
+class LazyTaskList extends AbstractList<Task> implements RandomAccess {
+
+    private static final int PAGE_SIZE = 256;
+
+    private final File source;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long[] lineStarts;
+    private final int lineCount;
+
+    // Each slot is a line number in the file, or a negative key of a task added in memory.
+    private int[] slots;
+    private int size;
+    private int nextAddedKey = -1;
+
+    private final Map<Integer, Task> pinned = new HashMap<>();
+    private final LinkedHashMap<Integer, CachedTask> cache;
+    private final MappedTaskReader parser = new MappedTaskReader();
+
+    private LazyTaskList(File source, FileChannel channel, long fileSize, long[] lineStarts, int lineCount,
+            int cacheSize) {
+        this.source = source;
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.slots = new int[Math.max(lineCount, 16)];
+        for (int i = 0; i < lineCount; i++) {
+            slots[i] = i;
+        }
+        this.size = lineCount;
+
+        int capacity = Math.max(cacheSize, 2 * PAGE_SIZE);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedTask> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                CachedTask evicted = eldest.getValue();
+                if (evicted.task.isMarked() != evicted.wasMarked) {
+                    pinned.put(eldest.getKey(), evicted.task);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Indexes the task lines of a text save file, verifying its checksums, without decoding any task.
+     *
+     * @param source text save file
+     * @param cacheSize number of decoded tasks to keep cached
+     * @return list of the tasks in the file
+     * @throws GregException if the file cannot be read or fails verification
+     */
+    static LazyTaskList open(File source, int cacheSize) throws GregException {
+        FileChannel channel = null;
+        try {
+            // Opened first: the list reads this version of the file even if it is replaced later.
+            channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+            long size = channel.size();
+            long[] starts = new MappedTaskReader().indexLines(source);
+            return new LazyTaskList(source, channel, size, starts, starts.length, cacheSize);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new GregException("Failed to read tasks from file: " + source.getPath());
+        } catch (GregException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        int key = slots[index];
+        if (key < 0) {
+            return pinned.get(key);
+        }
+
+        Task task = pinned.get(key);
+        if (task != null) {
+            return task;
+        }
+        CachedTask cached = cache.get(key);
+        if (cached == null) {
+            loadPage(key);
+            cached = cache.get(key);
+        }
+        return cached.task;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index != size) {
+            checkIndex(index, size);
+        }
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        System.arraycopy(slots, index, slots, index + 1, size - index);
+
+        int key = nextAddedKey--;
+        pinned.put(key, task);
+        slots[index] = key;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task previous = get(index);
+        forget(slots[index]);
+
+        int key = nextAddedKey--;
+        pinned.put(key, task);
+        slots[index] = key;
+        return previous;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        forget(slots[index]);
+
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes the matching tasks in a single pass over the slots. Every task is decoded to be
+     * tested; {@link #removeAll(Collection)} drops known tasks, such as the nulls left by a batch
+     * delete, without decoding the rest.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int key = slots[i];
+            if (filter.test(get(i))) {
+                forget(key);
+            } else {
+                slots[kept++] = key;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes the tasks in {@code c} in a single pass over the slots. Tasks are only equal to
+     * themselves, and a line that is not resident would be decoded into a new task that cannot be
+     * in {@code c}, so only resident tasks are compared: removing the nulls left by a batch delete
+     * reads no page other than those of the deleted tasks.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int key = slots[i];
+            if (isResident(key) && c.contains(get(i))) {
+                forget(key);
+            } else {
+                slots[kept++] = key;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Returns the number of decoded tasks currently held in memory.
+     *
+     * @return cached plus pinned tasks
+     */
+    int getResidentCount() {
+        return cache.size() + pinned.size();
+    }
+
+    /**
+     * Closes the underlying file. Tasks that are not resident can no longer be accessed.
+     */
+    void close() {
+        closeQuietly(channel);
+    }
+
+    private boolean isResident(int key) {
+        return key < 0 || pinned.containsKey(key) || cache.containsKey(key);
+    }
+
+    private void forget(int key) {
+        pinned.remove(key);
+        cache.remove(key);
+    }
+
+    /**
+     * Decodes the page of lines containing {@code line} with a single read.
+     */
+    private void loadPage(int line) {
+        int first = line - line % PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, lineCount) - 1;
+        long from = lineStarts[first];
+        long to = endBound(last);
+
+        ByteBuffer page = ByteBuffer.allocate((int) (to - from));
+        try {
+            while (page.hasRemaining()) {
+                if (channel.read(page, from + page.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        } catch (IOException e) {
+            throw new UnreadableTaskException("Failed to read tasks from file: " + source.getPath(), e);
+        }
+
+        for (int i = first; i <= last; i++) {
+            if (pinned.containsKey(i) || cache.containsKey(i)) {
+                continue;
+            }
+            int start = (int) (lineStarts[i] - from);
+            int end = start;
+            int bound = (int) (endBound(i) - from);
+            while (end < bound && page.get(end) != '\n' && page.get(end) != '\r') {
+                end++;
+            }
+            cache.put(i, new CachedTask(decode(page, start, end, i)));
+        }
+    }
+
+    private Task decode(ByteBuffer page, int start, int end, int line) {
+        try {
+            return parser.parseTask(page, start, end);
+        } catch (GregException e) {
+            throw corrupted(line, MappedTaskReader.reasonOf(e));
+        } catch (CharacterCodingException e) {
+            throw corrupted(line, "Save line is not valid UTF-8.");
+        }
+    }
+
+    private UnreadableTaskException corrupted(int line, String reason) {
+        return new UnreadableTaskException("Corrupted save file " + source.getPath()
+                + " at task " + (line + 1) + ": " + reason);
+    }
+
+    private long endBound(int line) {
+        return line + 1 < lineCount ? lineStarts[line + 1] : fileSize;
+    }
+
+    private static void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + limit);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more can be read either way.
+        }
+    }
+
+    /**
+     * A decoded task and its completion status in the file, to tell whether it was changed.
+     */
+    private static class CachedTask {
+        private final Task task;
+        private final boolean wasMarked;
+
+        CachedTask(Task task) {
+            this.task = task;
+            this.wasMarked = task.isMarked();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package greg.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how loading a save file went: how much was read, which lines were corrupted
+ * and skipped, which integrity checks failed, and how long it took.
+ */
+public class LoadReport {
+
+    private final List<String> errors = new ArrayList<>();
+    private final List<byte[]> corruptedLines = new ArrayList<>();
+
+    private int lineCount;
+    private int taskCount;
+    private long parseMillis;
+    private String quarantinePath = "";
+    private String journalQuarantinePath = "";
+    private String unreadableSnapshotPath = "";
+
+    /**
+     * Records a corrupted line that was skipped.
+     *
+     * @param lineNumber 1-indexed line number in the save file
+     * @param rawLine the line exactly as stored, without its terminator
+     * @param reason why the line could not be parsed
+     */
+    void addCorruptedLine(int lineNumber, byte[] rawLine, String reason) {
+        errors.add("line " + lineNumber + ": " + reason);
+        corruptedLines.add(rawLine);
+    }
+
+    /**
+     * Records a failed integrity check, such as a checksum mismatch; the lines it covers were
+     * still loaded if they could be parsed.
+     *
+     * @param lineNumber 1-indexed line number in the save file
+     * @param reason what failed
+     */
+    void addIntegrityError(int lineNumber, String reason) {
+        errors.add("line " + lineNumber + ": " + reason);
+    }
+
+    List<byte[]> getCorruptedLines() {
+        return corruptedLines;
+    }
+
+    void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    void setParseMillis(long parseMillis) {
+        this.parseMillis = parseMillis;
+    }
+
+    void setQuarantinePath(String quarantinePath) {
+        this.quarantinePath = quarantinePath;
+    }
+
+    void setJournalQuarantinePath(String journalQuarantinePath) {
+        this.journalQuarantinePath = journalQuarantinePath;
+    }
+
+    void setUnreadableSnapshotPath(String unreadableSnapshotPath) {
+        this.unreadableSnapshotPath = unreadableSnapshotPath;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public long getParseMillis() {
+        return parseMillis;
+    }
+
+    /**
+     * Returns one message per failed integrity check, then one per skipped line in file order,
+     * such as {@code "line 3: Corrupted save line."}.
+     *
+     * @return unmodifiable list of errors; empty if the file loaded cleanly
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns whether anything went wrong, including the save file being rolled back to its backup.
+     *
+     * @return true if there are errors or the backup was restored
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty() || isRestoredFromBackup();
+    }
+
+    public boolean isRestoredFromBackup() {
+        return !unreadableSnapshotPath.isEmpty();
+    }
+
+    /**
+     * Returns where the save file was moved when it could not be read and its backup generation
+     * was restored in its place.
+     *
+     * @return path of the unreadable save file, or an empty string if the save file was read
+     */
+    public String getUnreadableSnapshotPath() {
+        return unreadableSnapshotPath;
+    }
+
+    /**
+     * Returns the sidecar file that the skipped lines were copied to.
+     *
+     * @return path of the quarantine file, or an empty string if nothing was skipped
+     */
+    public String getQuarantinePath() {
+        return quarantinePath;
+    }
+
+    /**
+     * Returns the sidecar file that journaled changes were moved to without being applied.
+     * Journal records refer to tasks by number, so they cannot be applied once a line was skipped
+     * or the save file was rolled back to its backup.
+     *
+     * @return path of the journal quarantine file, or an empty string if the journal was applied
+     */
+    public String getJournalQuarantinePath() {
+        return journalQuarantinePath;
+    }
+}
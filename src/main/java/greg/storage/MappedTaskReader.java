@@ -0,0 +1,830 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import greg.exception.GregException;
+import greg.model.DateCache;
+import greg.model.Deadline;
+import greg.model.Event;
+import greg.model.Task;
+import greg.model.Todo;
+
+/**
+ * Loads a text save file by memory-mapping it and scanning the bytes in place.
+ * <p>
+ * Lines and {@code |}-separated fields are located by offset in the mapped buffer, dates and
+ * times are parsed straight from their digits, and the only strings built are descriptions.
+ * Lines that are not in the canonical shape written by {@link Task#toSaveString()} are decoded
+ * and handed to {@link Task#fromSaveString(String)}, so every line is accepted or rejected
+ * exactly as before.
+ * <p>
+ * Large files are split into newline-aligned chunks that are parsed in parallel on the
+ * common fork-join pool, each by its own reader, and stitched back together in file order.
+ * A malformed line is reported with its line number in the file, or, when reading
+ * tolerantly, skipped and recorded in a {@link LoadReport}.
+ * <p>
+ * The record count and block checksums described in {@link SaveFileChecksums} are verified
+ * during the same pass: chunks end after a checksum line, so each chunk checks its own blocks
+ * while their bytes are still in cache. The same pass can also just index or verify the file
+ * without decoding any task.
+ * <p>
+ * Not thread-safe: an instance reuses its field offsets and decoder between lines.
+ */
+class MappedTaskReader {
+
+    // A single mapping is limited to 2 GB; larger files are read in line-aligned windows.
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    // Below this many bytes per chunk, forking costs more than it saves.
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final String ERROR_PREFIX = "Error: ";
+    private static final String ERROR_INVALID_UTF8 = "Save line is not valid UTF-8.";
+    private static final String ERROR_BAD_HEADER = "Unsupported save file header.";
+    private static final String ERROR_BAD_CHECKSUM_LINE = "Malformed checksum line.";
+    private static final String ERROR_CHECKSUM_MISMATCH = "Checksum mismatch in the block ending here.";
+    private static final String ERROR_UNCHECKED_LINES = "Task lines from here on are not covered by a checksum.";
+
+    private static final int MAX_FIELDS = 7;
+    private static final int DATE_LENGTH = 10;
+    private static final int TIME_LENGTH = 4;
+
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Reads every task in the file.
+     *
+     * @param source text save file
+     * @return tasks in file order
+     * @throws GregException if the file cannot be read, a line is malformed or a checksum does not match
+     */
+    List<Task> read(File source) throws GregException {
+        return read(source, null);
+    }
+
+    /**
+     * Reads every task in the file, skipping malformed lines if a report is given.
+     *
+     * @param source text save file
+     * @param report receives the line count and every skipped line or failed check, or null to
+     *     fail on the first one
+     * @return tasks in file order
+     * @throws GregException if the file cannot be read, or it is damaged and {@code report} is null
+     */
+    List<Task> read(File source, LoadReport report) throws GregException {
+        Scan scan = new Scan(source, true, false, report != null);
+        scanFile(scan);
+
+        if (report != null) {
+            for (int i = 0; i < scan.errorLines.size(); i++) {
+                report.addIntegrityError(scan.errorLines.get(i), scan.errors.get(i));
+            }
+            for (CorruptedLine line : scan.corruptedLines) {
+                report.addCorruptedLine(line.lineNumber, line.raw, line.reason);
+            }
+            report.setLineCount(scan.lineCount);
+        }
+        return scan.tasks;
+    }
+
+    /**
+     * Returns where each task line of the file starts, without decoding any task.
+     *
+     * @param source text save file
+     * @return ascending file offsets of the task lines
+     * @throws GregException if the file cannot be read or a checksum does not match
+     */
+    long[] indexLines(File source) throws GregException {
+        Scan scan = new Scan(source, false, true, false);
+        scanFile(scan);
+        return Arrays.copyOf(scan.lineStarts, scan.recordCount);
+    }
+
+    /**
+     * Checks the record count and every block checksum of the file in one pass, without
+     * decoding any task.
+     *
+     * @param source text save file
+     * @return what was checked and every problem found
+     * @throws GregException if the file cannot be read
+     */
+    VerifyReport verify(File source) throws GregException {
+        long start = System.nanoTime();
+        Scan scan = new Scan(source, false, false, true);
+        scanFile(scan);
+
+        List<String> problems = new ArrayList<>();
+        for (int i = 0; i < scan.errorLines.size(); i++) {
+            problems.add("line " + scan.errorLines.get(i) + ": " + scan.errors.get(i));
+        }
+        return new VerifyReport(source.getPath(), scan.hasHeader, scan.recordCount, scan.blockCount, problems,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void scanFile(Scan scan) throws GregException {
+        File source = scan.source;
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean startsBlock = true;
+            while (position < size) {
+                long windowSize = Math.min(MAX_WINDOW_SIZE, size - position);
+                // The mapping is released when the window is garbage collected.
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                if (position == 0) {
+                    scan.hasHeader = SaveFileChecksums.isHeader(window, 0, (int) windowSize);
+                }
+
+                boolean isLast = position + windowSize == size;
+                int end = isLast ? (int) windowSize : -1;
+                if (!isLast && scan.hasHeader) {
+                    end = endOfLastBlock(window, (int) windowSize);
+                }
+                if (end <= 0) {
+                    end = isLast ? end : endOfLastLine(window, (int) windowSize);
+                }
+                if (end == 0) {
+                    throw new GregException("Save file line too long: " + source.getPath());
+                }
+
+                scanWindow(window, end, position, startsBlock, scan);
+                startsBlock = isLast || endsBlock(window, end);
+                position += end;
+            }
+        } catch (IOException e) {
+            throw new GregException("Failed to read tasks from file: " + source.getPath());
+        }
+
+        if (!scan.hasHeader) {
+            return;
+        }
+        if (scan.firstUncheckedLine > 0) {
+            scan.fail(scan.firstUncheckedLine, ERROR_UNCHECKED_LINES);
+        }
+        if (scan.expectedRecords != scan.recordCount) {
+            scan.fail(scan.lineCount, "Save file has " + scan.recordCount + " task lines but its header says "
+                    + scan.expectedRecords + ".");
+        }
+    }
+
+    /**
+     * Scans {@code window[0, end)}, in parallel chunks if it is large enough.
+     *
+     * @param position offset of the window in the file
+     * @param startsBlock whether the window starts right after a checksum line
+     * @throws GregException if the file is damaged and the scan is not tolerant
+     */
+    private void scanWindow(ByteBuffer window, int end, long position, boolean startsBlock, Scan scan)
+            throws GregException {
+        int chunkCount = Math.min(end / MIN_CHUNK_SIZE, ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        int chunkStart = 0;
+        boolean chunkStartsBlock = startsBlock;
+        for (int i = 1; i < chunkCount; i++) {
+            int ideal = (int) ((long) end * i / chunkCount);
+            // With checksums, chunks end after a checksum line so each one can verify its own blocks.
+            int chunkEnd = scan.hasHeader ? startOfNextBlock(window, ideal, end) : -1;
+            boolean endsBlock = chunkEnd > 0;
+            if (!endsBlock) {
+                chunkEnd = startOfNextLine(window, ideal, end);
+            }
+            if (chunkEnd > chunkStart && chunkEnd < end) {
+                tasks.add(new ChunkTask(new Chunk(window, chunkStart, chunkEnd, chunkStartsBlock, scan)));
+                chunkStart = chunkEnd;
+                chunkStartsBlock = endsBlock;
+            }
+        }
+        tasks.add(new ChunkTask(new Chunk(window, chunkStart, end, chunkStartsBlock, scan)));
+
+        runAll(tasks);
+        for (ChunkTask task : tasks) {
+            stitch(task.join(), position, scan);
+        }
+    }
+
+    /**
+     * Runs the chunk tasks in parallel and waits for every one of them to finish, even after one
+     * fails. Unlike {@link ForkJoinTask#invokeAll}, which may return while other chunks are still
+     * running, this ensures a failed scan leaves no chunk working in the background.
+     */
+    private static void runAll(List<ChunkTask> tasks) {
+        for (int i = 1; i < tasks.size(); i++) {
+            tasks.get(i).fork();
+        }
+
+        Throwable failure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                if (i == 0) {
+                    tasks.get(0).invoke();
+                } else {
+                    tasks.get(i).join();
+                }
+            } catch (RuntimeException | Error e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Adds the results of a chunk to the scan, translating its line numbers to file line numbers.
+     *
+     * @throws GregException if the chunk found damage and the scan is not tolerant
+     */
+    private static void stitch(Chunk chunk, long position, Scan scan) throws GregException {
+        int linesBefore = scan.lineCount;
+        for (CorruptedLine line : chunk.corruptedLines) {
+            line.lineNumber += linesBefore;
+            if (!scan.isTolerant) {
+                scan.fail(line.lineNumber, line.reason);
+            }
+            scan.corruptedLines.add(line);
+        }
+        for (int i = 0; i < chunk.errorLines.size(); i++) {
+            scan.fail(linesBefore + chunk.errorLines.get(i), chunk.errors.get(i));
+        }
+
+        if (scan.buildsTasks) {
+            scan.tasks.addAll(chunk.tasks);
+        }
+        if (scan.indexesLines) {
+            scan.lineStarts = ensureCapacity(scan.lineStarts, scan.recordCount + chunk.recordCount);
+            for (int i = 0; i < chunk.recordCount; i++) {
+                scan.lineStarts[scan.recordCount + i] = position + chunk.recordStarts[i];
+            }
+        }
+
+        if (chunk.expectedRecords >= 0) {
+            scan.expectedRecords = chunk.expectedRecords;
+        }
+        if (chunk.hasBoundary) {
+            scan.firstUncheckedLine = chunk.firstUncheckedLine > 0 ? linesBefore + chunk.firstUncheckedLine : 0;
+        } else if (scan.firstUncheckedLine == 0 && chunk.firstUncheckedLine > 0) {
+            scan.firstUncheckedLine = linesBefore + chunk.firstUncheckedLine;
+        }
+        scan.recordCount += chunk.recordCount;
+        scan.blockCount += chunk.blockCount;
+        scan.lineCount += chunk.lineCount;
+    }
+
+    /**
+     * Scans the lines in {@code buffer[from, to)} into {@code chunk}, verifying each block that
+     * starts inside it. Unless the scan is tolerant, it stops at the first problem.
+     * A {@code \r\n} pair ends a single line.
+     *
+     * @param buffer bytes of the save file
+     * @param from offset of the first byte of a line
+     * @param to offset just past a line terminator (or the end of the file)
+     * @param chunk receives tasks or line offsets in order, the line count and any problems
+     */
+    private void scanLines(ByteBuffer buffer, int from, int to, Chunk chunk) {
+        int blockStart = chunk.startsBlock ? from : -1;
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && !isLineTerminator(buffer.get(lineEnd))) {
+                lineEnd++;
+            }
+            chunk.lineCount++;
+
+            int nextLine = lineEnd + 1;
+            if (nextLine < to && buffer.get(lineEnd) == '\r' && buffer.get(nextLine) == '\n') {
+                nextLine++;
+            }
+
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+                start++;
+            }
+            while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+                end--;
+            }
+
+            if (start == end) {
+                // Blank lines are ignored.
+            } else if (buffer.get(start) == '#') {
+                if (checkIntegrityLine(buffer, start, end, lineStart, blockStart, chunk)) {
+                    blockStart = Math.min(nextLine, to);
+                }
+            } else {
+                scanRecord(buffer, lineStart, lineEnd, chunk);
+            }
+
+            if (!chunk.scan.isTolerant && chunk.hasProblems()) {
+                return;
+            }
+            lineStart = nextLine;
+        }
+    }
+
+    /**
+     * Handles a {@code #} line: records a header, or verifies the block a checksum line closes.
+     *
+     * @param blockStart offset where the current block started, or -1 if before this chunk
+     * @return true if the line ends a block
+     */
+    private static boolean checkIntegrityLine(ByteBuffer buffer, int start, int end, int lineStart,
+            int blockStart, Chunk chunk) {
+        if (SaveFileChecksums.isHeader(buffer, start, end)) {
+            chunk.expectedRecords = SaveFileChecksums.parseHeaderCount(buffer, start, end);
+            if (chunk.expectedRecords < 0) {
+                chunk.fail(ERROR_BAD_HEADER);
+            }
+            chunk.markBoundary();
+            return true;
+        }
+
+        if (!SaveFileChecksums.isChecksumLine(buffer, start, end)) {
+            return false; // a comment; part of the block like any other line
+        }
+
+        long expected = SaveFileChecksums.parseChecksum(buffer, start, end);
+        if (expected < 0) {
+            chunk.fail(ERROR_BAD_CHECKSUM_LINE);
+        } else if (blockStart >= 0) {
+            if (SaveFileChecksums.crc(buffer, blockStart, lineStart) != expected) {
+                chunk.fail(ERROR_CHECKSUM_MISMATCH);
+            }
+            chunk.blockCount++;
+        }
+        chunk.markBoundary();
+        return true;
+    }
+
+    private void scanRecord(ByteBuffer buffer, int lineStart, int lineEnd, Chunk chunk) {
+        chunk.recordCount++;
+        if (chunk.firstUncheckedLine == 0) {
+            chunk.firstUncheckedLine = chunk.lineCount;
+        }
+        if (chunk.scan.indexesLines) {
+            chunk.recordStarts = ensureCapacity(chunk.recordStarts, chunk.recordCount);
+            chunk.recordStarts[chunk.recordCount - 1] = lineStart;
+        }
+        if (!chunk.scan.buildsTasks) {
+            return;
+        }
+
+        try {
+            chunk.tasks.add(parseTask(buffer, lineStart, lineEnd));
+        } catch (GregException e) {
+            chunk.corruptedLines.add(new CorruptedLine(chunk.lineCount, buffer, lineStart, lineEnd, reasonOf(e)));
+        } catch (CharacterCodingException e) {
+            chunk.corruptedLines.add(new CorruptedLine(chunk.lineCount, buffer, lineStart, lineEnd,
+                    ERROR_INVALID_UTF8));
+        }
+    }
+
+    /**
+     * Parses the single non-blank line in {@code buffer[start, end)}.
+     *
+     * @param buffer bytes of the save file
+     * @param start offset of the first byte of the line
+     * @param end offset of its terminator (or the end of the data)
+     * @return the task
+     * @throws GregException if the line is blank or malformed
+     * @throws CharacterCodingException if the line is not valid UTF-8
+     */
+    Task parseTask(ByteBuffer buffer, int start, int end) throws GregException, CharacterCodingException {
+        Task task = parseLine(buffer, start, end);
+        if (task == null) {
+            throw new GregException("Corrupted save line.");
+        }
+        return task;
+    }
+
+    /**
+     * Parses one line, ignoring surrounding whitespace.
+     *
+     * @return the task, or null if the line is blank
+     */
+    private Task parseLine(ByteBuffer buffer, int start, int end)
+            throws GregException, CharacterCodingException {
+        // Same as String.trim(): every byte <= ' ' is an ASCII control or space in UTF-8.
+        while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        Task task = parseCanonicalLine(buffer, start, end);
+        if (task != null) {
+            return task;
+        }
+        return Task.fromSaveString(decode(buffer, start, end));
+    }
+
+    /**
+     * Fast path for lines in the exact shape written by {@link Task#toSaveString()}.
+     *
+     * @return the task, or null if the line needs the general parser
+     */
+    private Task parseCanonicalLine(ByteBuffer buffer, int start, int end)
+            throws GregException, CharacterCodingException {
+        int fieldCount = splitFields(buffer, start, end);
+        if (fieldCount < 3 || fieldEnds[0] - fieldStarts[0] != 1) {
+            return null;
+        }
+
+        boolean isDone = fieldEnds[1] - fieldStarts[1] == 1 && buffer.get(fieldStarts[1]) == '1';
+
+        Task task;
+        try {
+            switch (buffer.get(fieldStarts[0])) {
+                case 'T':
+                    task = new Todo(decodeField(buffer, 2));
+                    break;
+
+                case 'D':
+                    if (fieldCount < 5 || !isDateTime(buffer, 3)) {
+                        return null;
+                    }
+                    task = new Deadline(decodeField(buffer, 2), parseDate(buffer, 3), timeField(buffer, 4));
+                    break;
+
+                case 'E':
+                    if (fieldCount < 7 || !isDateTime(buffer, 3) || !isDateTime(buffer, 5)) {
+                        return null;
+                    }
+                    task = new Event(decodeField(buffer, 2), parseDate(buffer, 3), timeField(buffer, 4),
+                            parseDate(buffer, 5), timeField(buffer, 6));
+                    break;
+
+                default:
+                    return null;
+            }
+        } catch (DateTimeException e) {
+            // Not a real calendar date; the general parser reports it.
+            return null;
+        }
+
+        task.mark(isDone);
+        return task;
+    }
+
+    /**
+     * Records the offsets of up to {@link #MAX_FIELDS} fields separated by {@code |}, with the
+     * whitespace next to each separator removed, as {@code split("\\s*\\|\\s*")} would.
+     *
+     * @return total number of fields on the line
+     */
+    private int splitFields(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && buffer.get(i) != '|') {
+                continue;
+            }
+
+            if (count < MAX_FIELDS) {
+                int s = fieldStart;
+                int e = i;
+                if (s > start) {
+                    while (s < e && isRegexWhitespace(buffer.get(s))) {
+                        s++;
+                    }
+                }
+                if (e < end) {
+                    while (e > s && isRegexWhitespace(buffer.get(e - 1))) {
+                        e--;
+                    }
+                }
+                fieldStarts[count] = s;
+                fieldEnds[count] = e;
+            }
+            count++;
+            fieldStart = i + 1;
+        }
+        return count;
+    }
+
+    private boolean isDateTime(ByteBuffer buffer, int dateField) {
+        int start = fieldStarts[dateField];
+        if (fieldEnds[dateField] - start != DATE_LENGTH
+                || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return false;
+        }
+        if (!areDigits(buffer, start, 4) || !areDigits(buffer, start + 5, 2) || !areDigits(buffer, start + 8, 2)) {
+            return false;
+        }
+
+        int timeLength = fieldEnds[dateField + 1] - fieldStarts[dateField + 1];
+        return timeLength == 0
+                || timeLength == TIME_LENGTH && areDigits(buffer, fieldStarts[dateField + 1], TIME_LENGTH);
+    }
+
+    private LocalDate parseDate(ByteBuffer buffer, int field) {
+        int start = fieldStarts[field];
+        return DateCache.of(number(buffer, start, 4), number(buffer, start + 5, 2), number(buffer, start + 8, 2));
+    }
+
+    private String timeField(ByteBuffer buffer, int field) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length == 0) {
+            return "";
+        }
+
+        char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) buffer.get(start + i);
+        }
+        return new String(digits);
+    }
+
+    private String decodeField(ByteBuffer buffer, int field) throws CharacterCodingException {
+        return decode(buffer, fieldStarts[field], fieldEnds[field]);
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] < 0) {
+                // Non-ASCII: decode strictly so malformed bytes are reported, not replaced.
+                CharBuffer chars = decoder.decode(ByteBuffer.wrap(scratch, 0, length));
+                return chars.toString();
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean areDigits(ByteBuffer buffer, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(ByteBuffer buffer, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLineTerminator(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static boolean isRegexWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Returns the offset just past the last line terminator in the first {@code limit} bytes,
+     * preferring {@code \n} so that a {@code \r\n} pair is never split.
+     *
+     * @return offset, or 0 if there is no terminator
+     */
+    static int endOfLastLine(ByteBuffer buffer, int limit) {
+        int end = 0;
+        for (int i = limit - 1; i >= 0; i--) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                return i + 1;
+            }
+            if (b == '\r' && end == 0) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the offset just past the last complete checksum line in the first {@code limit} bytes.
+     *
+     * @return offset, or -1 if there is none
+     */
+    private static int endOfLastBlock(ByteBuffer buffer, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) != '#' || i > 0 && buffer.get(i - 1) != '\n'
+                    || !SaveFileChecksums.isChecksumLine(buffer, i, limit)) {
+                continue;
+            }
+            int end = startOfNextLine(buffer, i, limit);
+            if (end < limit || buffer.get(limit - 1) == '\n') {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset just past the first checksum line that starts after {@code from}.
+     *
+     * @return offset, or -1 if there is none
+     */
+    private static int startOfNextBlock(ByteBuffer buffer, int from, int limit) {
+        for (int i = startOfNextLine(buffer, from, limit); i < limit; i = startOfNextLine(buffer, i, limit)) {
+            if (SaveFileChecksums.isChecksumLine(buffer, i, limit)) {
+                return startOfNextLine(buffer, i, limit);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the line ending at {@code end} is a checksum line.
+     */
+    private static boolean endsBlock(ByteBuffer buffer, int end) {
+        int lineEnd = end;
+        while (lineEnd > 0 && isLineTerminator(buffer.get(lineEnd - 1))) {
+            lineEnd--;
+        }
+        int lineStart = lineEnd;
+        while (lineStart > 0 && !isLineTerminator(buffer.get(lineStart - 1))) {
+            lineStart--;
+        }
+        return SaveFileChecksums.isChecksumLine(buffer, lineStart, lineEnd);
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    /**
+     * Returns the offset just past the first {@code \n} at or after {@code from}.
+     *
+     * @return offset, or {@code limit} if there is none
+     */
+    private static int startOfNextLine(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    static String reasonOf(GregException e) {
+        // GregException prefixes every message; keep only the reason.
+        String message = e.getMessage();
+        return message.startsWith(ERROR_PREFIX) ? message.substring(ERROR_PREFIX.length()) : message;
+    }
+
+    /**
+     * Settings and accumulated results of one pass over a save file.
+     */
+    private static class Scan {
+        private final File source;
+        private final boolean buildsTasks;
+        private final boolean indexesLines;
+        private final boolean isTolerant;
+
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<CorruptedLine> corruptedLines = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long[] lineStarts = new long[0];
+
+        private boolean hasHeader;
+        private long expectedRecords = -1;
+        private int recordCount;
+        private int lineCount;
+        private int blockCount;
+        private int firstUncheckedLine;
+
+        Scan(File source, boolean buildsTasks, boolean indexesLines, boolean isTolerant) {
+            this.source = source;
+            this.buildsTasks = buildsTasks;
+            this.indexesLines = indexesLines;
+            this.isTolerant = isTolerant;
+        }
+
+        void fail(int lineNumber, String reason) throws GregException {
+            if (!isTolerant) {
+                throw new GregException("Corrupted save file " + source.getPath() + " at line "
+                        + lineNumber + ": " + reason);
+            }
+            errorLines.add(lineNumber);
+            errors.add(reason);
+        }
+    }
+
+    /**
+     * Results of scanning one chunk of a save file, with line numbers relative to the chunk.
+     */
+    private static class Chunk {
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final boolean startsBlock;
+        private final Scan scan;
+
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<CorruptedLine> corruptedLines = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int[] recordStarts = new int[0];
+
+        private int lineCount;
+        private int recordCount;
+        private int blockCount;
+        private long expectedRecords = -1;
+        private boolean hasBoundary;
+        private int firstUncheckedLine;
+
+        Chunk(ByteBuffer buffer, int from, int to, boolean startsBlock, Scan scan) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.startsBlock = startsBlock;
+            this.scan = scan;
+        }
+
+        void fail(String reason) {
+            errorLines.add(lineCount);
+            errors.add(reason);
+        }
+
+        void markBoundary() {
+            hasBoundary = true;
+            firstUncheckedLine = 0;
+        }
+
+        boolean hasProblems() {
+            return !corruptedLines.isEmpty() || !errors.isEmpty();
+        }
+    }
+
+    /**
+     * A malformed line, copied out of the mapping so it can outlive it.
+     */
+    private static class CorruptedLine {
+        private int lineNumber;
+        private final byte[] raw;
+        private final String reason;
+
+        CorruptedLine(int lineNumber, ByteBuffer buffer, int start, int end, String reason) {
+            this.lineNumber = lineNumber;
+            this.raw = new byte[end - start];
+            buffer.get(start, raw);
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Scans one chunk with a reader of its own, since readers are not thread-safe.
+     */
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+
+        ChunkTask(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Chunk compute() {
+            new MappedTaskReader().scanLines(chunk.buffer, chunk.from, chunk.to, chunk);
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package greg.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Integrity lines of the text save format.
+ * <p>
+ * A text save file starts with a header giving the number of task lines, and every block of
+ * task lines is followed by the CRC32C of its bytes (the event line ends with a space):
+ * <pre>
+ * # greg-save | 1 | 3
+ * T | 0 | read book
+ * D | 0 | return book | 2026-03-02 | 1800
+ * # crc32c | 040b4e36
+ * E | 0 | camp | 2026-03-10 |  | 2026-03-12 |
+ * # crc32c | 77467e9c
+ * </pre>
+ * Lines starting with {@code #} are never tasks. Files without a header (written by older
+ * versions or by hand) are loaded without verification.
+ */
+class SaveFileChecksums {
+
+    static final int VERSION = 1;
+
+    private static final String HEADER_PREFIX = "# greg-save | ";
+    private static final String CHECKSUM_PREFIX = "# crc32c | ";
+    private static final byte[] HEADER_BYTES = HEADER_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHECKSUM_BYTES = CHECKSUM_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private SaveFileChecksums() {
+    }
+
+    /**
+     * Returns the header line for a file of {@code recordCount} tasks.
+     *
+     * @param recordCount number of task lines that follow
+     * @return header line including its terminator
+     */
+    static String header(int recordCount) {
+        return HEADER_PREFIX + VERSION + " | " + recordCount + "\n";
+    }
+
+    /**
+     * Returns the line closing a block whose bytes have the given checksum.
+     *
+     * @param crc CRC32C of the block
+     * @return checksum line including its terminator
+     */
+    static String checksumLine(long crc) {
+        return CHECKSUM_PREFIX + String.format("%08x", crc) + "\n";
+    }
+
+    static boolean isHeader(ByteBuffer buffer, int start, int end) {
+        return startsWith(buffer, start, end, HEADER_BYTES);
+    }
+
+    static boolean isChecksumLine(ByteBuffer buffer, int start, int end) {
+        return startsWith(buffer, start, end, CHECKSUM_BYTES);
+    }
+
+    /**
+     * Parses the record count of a header line.
+     *
+     * @param buffer bytes of the save file
+     * @param start offset of the header line, without leading whitespace
+     * @param end offset of its end, without trailing whitespace
+     * @return record count, or -1 if the header is malformed or of another version
+     */
+    static long parseHeaderCount(ByteBuffer buffer, int start, int end) {
+        int i = start + HEADER_BYTES.length;
+        long version = 0;
+        int digits = 0;
+        for (; i < end && isDigit(buffer.get(i)); i++, digits++) {
+            version = version * 10 + (buffer.get(i) - '0');
+        }
+        if (digits == 0 || version != VERSION) {
+            return -1;
+        }
+
+        while (i < end && (buffer.get(i) == ' ' || buffer.get(i) == '|')) {
+            i++;
+        }
+        long count = 0;
+        digits = 0;
+        for (; i < end && isDigit(buffer.get(i)) && digits < 10; i++, digits++) {
+            count = count * 10 + (buffer.get(i) - '0');
+        }
+        return digits == 0 || i != end ? -1 : count;
+    }
+
+    /**
+     * Parses the checksum of a checksum line.
+     *
+     * @param buffer bytes of the save file
+     * @param start offset of the checksum line, without leading whitespace
+     * @param end offset of its end, without trailing whitespace
+     * @return the checksum, or -1 if the line is malformed
+     */
+    static long parseChecksum(ByteBuffer buffer, int start, int end) {
+        int from = start + CHECKSUM_BYTES.length;
+        if (end - from != 8) {
+            return -1;
+        }
+
+        long crc = 0;
+        for (int i = from; i < end; i++) {
+            int digit = Character.digit(buffer.get(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            crc = crc << 4 | digit;
+        }
+        return crc;
+    }
+
+    /**
+     * Computes the CRC32C of {@code buffer[from, to)}.
+     *
+     * @return checksum
+     */
+    static long crc(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(from, to - from));
+        return crc.getValue();
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,54 @@
+package greg.storage;
+
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * Converts a save file between the text and binary formats.
+ * <p>
+ * The format of each side is chosen from its file extension, as in {@link Storage}. Any
+ * journaled changes of the source are included, so a live save file migrates cleanly:
+ * <pre>
+ * java -cp greg.jar greg.storage.SaveFileConverter data/greg.txt data/greg.bin
+ * </pre>
+ */
+public class SaveFileConverter {
+
+    private SaveFileConverter() {
+    }
+
+    /**
+     * Reads every task from {@code sourcePath} and writes them to {@code targetPath}.
+     *
+     * @param sourcePath save file to read
+     * @param targetPath save file to create or overwrite
+     * @return number of tasks converted
+     * @throws GregException if either file cannot be accessed
+     */
+    public static int convert(String sourcePath, String targetPath) throws GregException {
+        Storage source = new Storage(sourcePath);
+        Storage target = new Storage(targetPath);
+
+        List<Task> tasks = source.loadAll();
+        target.saveAll(tasks);
+        target.close();
+        return tasks.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SaveFileConverter <source> <target>  (.bin = binary, otherwise text)");
+            System.exit(1);
+        }
+
+        try {
+            int count = convert(args[0], args[1]);
+            System.out.println("Converted " + count + " tasks from " + args[0] + " to " + args[1]);
+        } catch (GregException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
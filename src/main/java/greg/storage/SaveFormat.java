@@ -0,0 +1,85 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * An on-disk encoding of a full task list snapshot.
+ */
+interface SaveFormat {
+
+    String BINARY_EXTENSION = ".bin";
+
+    /**
+     * Picks the format for a save file from its extension: {@code .bin} files are binary,
+     * everything else uses the pipe-delimited text format.
+     *
+     * @param filePath path to the save file
+     * @return matching format
+     */
+    static SaveFormat forPath(String filePath) {
+        return filePath.endsWith(BINARY_EXTENSION) ? new BinarySaveFormat() : new TextSaveFormat();
+    }
+
+    /**
+     * Encodes all tasks into the channel.
+     *
+     * @param tasks tasks to write, in order
+     * @param channel destination, positioned at the start of an empty file
+     * @throws IOException if writing fails
+     */
+    void write(List<Task> tasks, WritableByteChannel channel) throws IOException;
+
+    /**
+     * Decodes all tasks from the file.
+     *
+     * @param source save file
+     * @return tasks in file order
+     * @throws GregException if the file cannot be read or is malformed
+     */
+    List<Task> read(File source) throws GregException;
+
+    /**
+     * Decodes all tasks from the file, skipping corrupted entries where the format allows it.
+     * <p>
+     * By default the file is read strictly, with one line counted per task.
+     *
+     * @param source save file
+     * @param report receives the line count and every skipped entry
+     * @return tasks in file order, without the skipped entries
+     * @throws GregException if the file cannot be read, or is malformed in a way that cannot be skipped
+     */
+    default List<Task> read(File source, LoadReport report) throws GregException {
+        List<Task> tasks = read(source);
+        report.setLineCount(tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Checks the file for damage without loading it, as far as the format allows.
+     * <p>
+     * By default the file is decoded in full, since there are no checksums to check.
+     *
+     * @param source save file
+     * @return what was checked and every problem found
+     * @throws GregException if the file cannot be checked at all
+     */
+    default VerifyReport verify(File source) throws GregException {
+        long start = System.nanoTime();
+        List<String> problems = new ArrayList<>();
+        int recordCount = 0;
+        try {
+            recordCount = read(source).size();
+        } catch (GregException e) {
+            problems.add(MappedTaskReader.reasonOf(e));
+        }
+        return new VerifyReport(source.getPath(), false, recordCount, 0, problems,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,134 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * Crash-safe writing and replacement of snapshot files.
+ * <p>
+ * A snapshot is never written in place: it is written to a sibling file, forced to disk,
+ * and then atomically renamed over the real file, so a crash leaves either the old or the
+ * new snapshot but never a truncated one. The previous snapshot is kept as a {@code .bak}
+ * generation that {@link #restoreBackup(File)} can roll back to.
+ */
+class SnapshotFiles {
+
+    private static final String BACKUP_SUFFIX = ".bak";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private SnapshotFiles() {
+    }
+
+    /**
+     * Writes all tasks to {@code target} and forces the content to disk.
+     *
+     * @param target file to create or overwrite; normally a temporary sibling of the snapshot
+     * @param tasks tasks to write
+     * @param format encoding of the snapshot
+     * @throws GregException if the file cannot be written
+     */
+    static void write(File target, List<Task> tasks, SaveFormat format) throws GregException {
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            format.write(tasks, channel);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new GregException("Failed to save tasks to file: " + target.getPath());
+        }
+    }
+
+    /**
+     * Atomically moves a fully written {@code replacement} over {@code snapshot}, keeping the
+     * previous snapshot as a backup generation.
+     *
+     * @param replacement file produced by {@link #write(File, List, SaveFormat)}
+     * @param snapshot snapshot file to replace
+     * @throws GregException if the replacement cannot be moved into place
+     */
+    static void replace(File replacement, File snapshot) throws GregException {
+        keepBackup(snapshot);
+
+        Path source = replacement.toPath();
+        Path target = snapshot.toPath();
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new GregException("Failed to replace save file: " + snapshot.getPath());
+        }
+        forceDirectory(snapshot);
+    }
+
+    /**
+     * Rolls {@code snapshot} back to its backup generation, keeping the unreadable file aside.
+     *
+     * @param snapshot snapshot that could not be read
+     * @return true if a backup existed and was restored
+     */
+    static boolean restoreBackup(File snapshot) {
+        Path backup = backupOf(snapshot);
+        if (!Files.exists(backup)) {
+            return false;
+        }
+
+        try {
+            Files.move(snapshot.toPath(), unreadableCopyOf(snapshot), StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(backup, snapshot.toPath());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns where {@link #restoreBackup(File)} keeps the unreadable snapshot.
+     */
+    static Path unreadableCopyOf(File snapshot) {
+        return Path.of(snapshot.getPath() + CORRUPT_SUFFIX);
+    }
+
+    private static void keepBackup(File snapshot) throws GregException {
+        if (!snapshot.exists()) {
+            return;
+        }
+
+        Path backup = backupOf(snapshot);
+        try {
+            Files.deleteIfExists(backup);
+            try {
+                // A hard link costs O(1), unlike copying a large snapshot.
+                Files.createLink(backup, snapshot.toPath());
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(snapshot.toPath(), backup);
+            }
+        } catch (IOException e) {
+            throw new GregException("Failed to keep backup of save file: " + snapshot.getPath());
+        }
+    }
+
+    private static Path backupOf(File snapshot) {
+        return Path.of(snapshot.getPath() + BACKUP_SUFFIX);
+    }
+
+    private static void forceDirectory(File snapshot) {
+        File parent = snapshot.getAbsoluteFile().getParentFile();
+        try (FileChannel dir = FileChannel.open(parent.toPath(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not every platform can sync a directory; the rename itself is still atomic.
+        }
+    }
+}
@@ -1,56 +1,362 @@
 package greg.storage;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Scanner;
 
 import greg.exception.GregException;
+import greg.exception.UnreadableTaskException;
 import greg.model.Task;
 
 /**
  * Handles loading tasks from disk and saving tasks to disk.
  * <p>
- * Tasks are stored line-by-line using each task's save-string representation.
+ * Tasks are stored line-by-line using each task's save-string representation, or in a compact
+ * binary form when the save file name ends in {@code .bin} (see {@link SaveFormat}).
+ * The save file is only ever replaced atomically through {@link SnapshotFiles}, so a crash
+ * mid-save cannot truncate it, and the previous version is kept as a backup.
+ * Individual mutations can also be appended to a {@link TaskJournal} kept next to the
+ * save file, so a single change does not require rewriting every task; the journal is
+ * replayed on top of the save file when loading and folded back into it by {@link #saveAll},
+ * or in the background by a {@link JournalCompactor} once it grows past a threshold.
+ * When journal records reach the disk is governed by the configured {@link DurabilityMode}.
+ * <p>
+ * {@link #loadAllSkippingCorrupted()} loads around corrupted lines instead of failing, moving
+ * them to a {@code .quarantine} file next to the save file. Text save files carry block
+ * checksums that are verified on every load and can be checked alone with {@link #verify()}.
  */
 public class Storage {
 
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String QUARANTINE_SUFFIX = ".quarantine";
+
     private final File file;
+    private final SaveFormat format;
+    private final TaskJournal journal;
+    private final JournalCompactor compactor;
+    private final DurabilityMode durability;
+    private final WriteBehindSaver saver;
+    private final int lazyCacheTasks;
+
+    private LoadReport loadReport = new LoadReport();
+    private LazyTaskList lazyTasks;
 
     /**
-     * Creates a Storage instance backed by the given file path.
+     * Creates a Storage instance backed by the given file path, using default settings.
      *
      * @param filePath path to the save file
      */
     public Storage(String filePath) {
+        this(filePath, new StorageConfig());
+    }
+
+    /**
+     * Creates a Storage instance backed by the given file path.
+     *
+     * @param filePath path to the save file
+     * @param config durability and journal compaction settings
+     */
+    public Storage(String filePath, StorageConfig config) {
+        String journalPath = filePath + JOURNAL_SUFFIX;
         this.file = new File(filePath);
+        this.format = SaveFormat.forPath(filePath);
+        this.journal = new TaskJournal(new File(journalPath), file);
+        this.compactor = new JournalCompactor(this, file, journal, journalPath,
+                config.maxJournalRecords, config.maxJournalBytes);
+        this.durability = config.durability;
+        this.saver = new WriteBehindSaver(journal, config.flushIntervalMillis);
+        this.lazyCacheTasks = config.lazyCacheTasks;
+
+        if (durability == DurabilityMode.PER_INTERVAL) {
+            saver.start();
+        }
     }
 
     /**
-     * Saves all tasks to disk, overwriting the existing file.
+     * Saves all tasks to disk, overwriting the existing file and clearing the journal.
      *
      * @param tasks tasks to save
      * @throws GregException if the tasks cannot be written
      */
     public void saveAll(List<Task> tasks) throws GregException {
         ensureFileReady();
-        writeTasks(tasks);
+        compactor.awaitIdle();
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        writeTasks(temp, tasks);
+        SnapshotFiles.replace(temp, file);
+        compactor.getSegment().clear();
+        journal.clear();
     }
 
     /**
-     * Loads all tasks from disk.
+     * Loads all tasks from disk, replaying any journaled mutations on top of the save file.
+     * <p>
+     * If the save file cannot be read, it is moved aside and the backup generation is restored.
+     * Journaled changes were made on top of the unreadable file, so they are then moved to a
+     * {@code .journal.quarantine} file instead of being applied; {@link #getLoadReport()} tells
+     * whether this happened.
      *
      * @return list of tasks loaded from file (possibly empty)
-     * @throws GregException if the file cannot be read or is malformed
+     * @throws GregException if neither the file nor its backup can be read
      */
     public List<Task> loadAll() throws GregException {
         ensureFileReady();
-        return readTasks();
+        loadReport = new LoadReport();
+        List<Task> tasks = readSnapshot();
+        compactor.getSegment().replay(tasks);
+        journal.replay(tasks);
+        return tasks;
+    }
+
+    /**
+     * Loads all tasks like {@link #loadAll()}, but skips corrupted lines of the save file
+     * instead of failing.
+     * <p>
+     * Skipped lines are appended, exactly as stored, to a {@code .quarantine} file next to the
+     * save file, and the save file is then rewritten without them. What was skipped is
+     * described by {@link #getLoadReport()}.
+     *
+     * @return list of tasks that could be loaded (possibly empty)
+     * @throws GregException if the file cannot be read at all, or the skipped lines cannot be set aside
+     */
+    public List<Task> loadAllSkippingCorrupted() throws GregException {
+        long start = System.nanoTime();
+        ensureFileReady();
+
+        List<Task> tasks;
+        try {
+            tasks = readSnapshotSkippingCorrupted();
+        } catch (GregException e) {
+            restoreBackup(e);
+            tasks = readSnapshotSkippingCorrupted();
+            setAsideJournal();
+        }
+        if (loadReport.getCorruptedLines().isEmpty()) {
+            compactor.getSegment().replay(tasks);
+            journal.replay(tasks);
+        } else {
+            // Journal records refer to tasks by number, which skipping a line has shifted.
+            quarantineJournal(loadReport);
+        }
+
+        if (loadReport.hasErrors()) {
+            if (!loadReport.getCorruptedLines().isEmpty()) {
+                quarantine(loadReport);
+            }
+            saveAll(tasks); // rewritten without the bad lines and with fresh checksums
+        }
+        loadReport.setTaskCount(tasks.size());
+        loadReport.setParseMillis((System.nanoTime() - start) / 1_000_000);
+        return tasks;
+    }
+
+    /**
+     * Loads all tasks like {@link #loadAll()}, but decodes each task from a text save file only
+     * when it is first accessed.
+     * <p>
+     * Only the position of each line is read up front; decoded tasks are kept in a bounded cache.
+     * The returned list reads the save file as it was when loaded until {@link #close()}, and
+     * throws {@link UnreadableTaskException} when a corrupted line is accessed. Binary save files
+     * are loaded in full, as by {@link #loadAll()}. An unreadable save file is rolled back as by
+     * {@link #loadAll()}.
+     *
+     * @return mutable list of tasks
+     * @throws GregException if the file cannot be read
+     */
+    public List<Task> loadLazily() throws GregException {
+        if (!(format instanceof TextSaveFormat)) {
+            return loadAll();
+        }
+
+        long start = System.nanoTime();
+        ensureFileReady();
+        loadReport = new LoadReport();
+        LazyTaskList tasks;
+        try {
+            tasks = LazyTaskList.open(file, lazyCacheTasks);
+        } catch (GregException e) {
+            restoreBackup(e);
+            tasks = LazyTaskList.open(file, lazyCacheTasks);
+            try {
+                setAsideJournal();
+            } catch (GregException ex) {
+                tasks.close();
+                throw ex;
+            }
+        }
+
+        try {
+            compactor.getSegment().replay(tasks);
+            journal.replay(tasks);
+        } catch (GregException | UnreadableTaskException e) {
+            tasks.close();
+            throw e;
+        }
+
+        loadReport.setTaskCount(tasks.size());
+        loadReport.setParseMillis((System.nanoTime() - start) / 1_000_000);
+        if (lazyTasks != null) {
+            lazyTasks.close();
+        }
+        lazyTasks = tasks;
+        return tasks;
+    }
+
+    /**
+     * Checks the save file's record count and block checksums in one sequential pass,
+     * without decoding any task. Changes still in the journal are not covered.
+     *
+     * @return what was checked and every problem found
+     * @throws GregException if the file cannot be read
+     */
+    public VerifyReport verify() throws GregException {
+        ensureFileReady();
+        return format.verify(file);
+    }
+
+    /**
+     * Returns what happened during the last load. Only {@link #loadAllSkippingCorrupted()} skips
+     * corrupted lines; every load reports a rollback to the backup generation.
+     *
+     * @return report of the last load, or an empty report if there has been none
+     */
+    public LoadReport getLoadReport() {
+        return loadReport;
+    }
+
+    /**
+     * Writes any buffered mutations without stopping background work, so a long batch can save
+     * its progress now and then.
+     *
+     * @throws GregException if buffered mutations cannot be written
+     */
+    public void flush() throws GregException {
+        journal.flush();
+    }
+
+    /**
+     * Writes any buffered mutations and waits for background work to finish.
+     * <p>
+     * Must be called before exiting when the durability mode buffers writes.
+     *
+     * @throws GregException if buffered mutations cannot be written
+     */
+    public void close() throws GregException {
+        saver.stop();
+        journal.flush();
+        compactor.awaitIdle();
+        if (lazyTasks != null) {
+            lazyTasks.close();
+            lazyTasks = null;
+        }
+    }
+
+    /**
+     * Returns timing and space statistics for background journal compactions.
+     *
+     * @return live compaction statistics
+     */
+    public CompactionStats getCompactionStats() {
+        return compactor.getStats();
+    }
+
+    /**
+     * Journals a task added to the end of the list.
+     *
+     * @param task added task
+     * @throws GregException if the record (or an earlier buffered one) cannot be written
+     */
+    public void appendAdd(Task task) throws GregException {
+        ensureFileReady();
+        journal.appendAdd(task);
+        afterAppend();
+    }
+
+    /**
+     * Journals a task being marked or unmarked.
+     *
+     * @param oneIndexedIndex 1-indexed task number
+     * @param isDone new completion status
+     * @throws GregException if the record (or an earlier buffered one) cannot be written
+     */
+    public void appendMark(int oneIndexedIndex, boolean isDone) throws GregException {
+        ensureFileReady();
+        journal.appendMark(oneIndexedIndex, isDone);
+        afterAppend();
+    }
+
+    /**
+     * Journals a task being deleted.
+     *
+     * @param oneIndexedIndex 1-indexed task number
+     * @throws GregException if the record (or an earlier buffered one) cannot be written
+     */
+    public void appendDelete(int oneIndexedIndex) throws GregException {
+        ensureFileReady();
+        journal.appendDelete(oneIndexedIndex);
+        afterAppend();
+    }
+
+    /**
+     * Journals a batch of tasks being marked or unmarked as a single record and write.
+     *
+     * @param oneIndexedIndices ascending 1-indexed task numbers
+     * @param isDone new completion status
+     * @throws GregException if the record (or an earlier buffered one) cannot be written
+     */
+    public void appendMark(int[] oneIndexedIndices, boolean isDone) throws GregException {
+        if (oneIndexedIndices.length == 0) {
+            return;
+        }
+        ensureFileReady();
+        journal.appendMark(oneIndexedIndices, isDone);
+        afterAppend();
+    }
+
+    /**
+     * Journals a batch of tasks being deleted as a single record and write.
+     *
+     * @param oneIndexedIndices ascending 1-indexed task numbers, as before the deletion
+     * @throws GregException if the record (or an earlier buffered one) cannot be written
+     */
+    public void appendDelete(int[] oneIndexedIndices) throws GregException {
+        if (oneIndexedIndices.length == 0) {
+            return;
+        }
+        ensureFileReady();
+        journal.appendDelete(oneIndexedIndices);
+        afterAppend();
+    }
+
+    /**
+     * Journals deleted tasks being put back, e.g. by an undo, with a single write.
+     *
+     * @param oneIndexedIndices ascending 1-indexed task numbers the tasks get back
+     * @param tasks the tasks, in the same order
+     * @throws GregException if the records (or an earlier buffered one) cannot be written
+     */
+    public void appendInsert(int[] oneIndexedIndices, List<Task> tasks) throws GregException {
+        if (oneIndexedIndices.length == 0) {
+            return;
+        }
+        ensureFileReady();
+        for (int i = 0; i < oneIndexedIndices.length; i++) {
+            journal.appendInsert(oneIndexedIndices[i], tasks.get(i));
+        }
+        afterAppend();
     }
 
+    private void afterAppend() throws GregException {
+        if (durability == DurabilityMode.PER_COMMAND) {
+            journal.flush();
+        }
+        saver.checkHealthy();
+        compactor.maybeCompact();
+    }
 
     private void ensureFileReady() throws GregException {
         ensureParentDirectoryExists();
@@ -86,30 +392,78 @@ public class Storage {
         }
     }
 
-    private void writeTasks(List<Task> tasks) throws GregException {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(file))) {
-            for (Task task : tasks) {
-                pw.println(task.toSaveString());
-            }
-        } catch (IOException e) {
-            throw new GregException("Failed to save tasks to file: " + file.getPath());
+    void writeTasks(File target, List<Task> tasks) throws GregException {
+        SnapshotFiles.write(target, tasks, format);
+    }
+
+    private List<Task> readSnapshotSkippingCorrupted() throws GregException {
+        loadReport = new LoadReport();
+        return format.read(file, loadReport);
+    }
+
+    /**
+     * Moves the journal records aside, unapplied, to a {@code .journal.quarantine} file; the
+     * {@code saveAll} that follows clears the journal itself.
+     */
+    private void quarantineJournal(LoadReport report) throws GregException {
+        File quarantine = new File(file.getPath() + JOURNAL_SUFFIX + QUARANTINE_SUFFIX);
+        boolean hasSegment = compactor.getSegment().copyTo(quarantine);
+        if (journal.copyTo(quarantine) || hasSegment) {
+            report.setJournalQuarantinePath(quarantine.getPath());
         }
     }
 
-    private List<Task> readTasks() throws GregException {
-        List<Task> tasks = new ArrayList<>();
+    private void quarantine(LoadReport report) throws GregException {
+        File quarantine = new File(file.getPath() + QUARANTINE_SUFFIX);
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (byte[] line : report.getCorruptedLines()) {
+            lines.writeBytes(line);
+            lines.write('\n');
+        }
 
-        try (Scanner sc = new Scanner(file)) {
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (!line.isEmpty()) {
-                    tasks.add(Task.fromSaveString(line));
-                }
-            }
+        try {
+            Files.write(quarantine.toPath(), lines.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
         } catch (IOException e) {
-            throw new GregException("Failed to read tasks from file: " + file.getPath());
+            throw new GregException("Failed to quarantine corrupted lines to: " + quarantine.getPath());
         }
+        report.setQuarantinePath(quarantine.getPath());
+    }
 
-        return tasks;
+    private List<Task> readSnapshot() throws GregException {
+        try {
+            return readTasks(file);
+        } catch (GregException e) {
+            restoreBackup(e);
+            List<Task> tasks = readTasks(file);
+            setAsideJournal();
+            return tasks;
+        }
+    }
+
+    /**
+     * Rolls the unreadable save file back to its backup generation.
+     *
+     * @param cause why the save file could not be read; rethrown if there is no backup
+     */
+    private void restoreBackup(GregException cause) throws GregException {
+        if (!SnapshotFiles.restoreBackup(file)) {
+            throw cause;
+        }
+    }
+
+    /**
+     * Records a rollback to the backup generation in the load report and moves the journal aside.
+     * The restored file no longer matches the journal's fingerprint, so replaying would discard
+     * the journal without a word; it is copied to a {@code .journal.quarantine} file first.
+     */
+    private void setAsideJournal() throws GregException {
+        loadReport.setUnreadableSnapshotPath(SnapshotFiles.unreadableCopyOf(file).toString());
+        quarantineJournal(loadReport);
+        compactor.getSegment().clear();
+        journal.clear();
+    }
+
+    List<Task> readTasks(File source) throws GregException {
+        return format.read(source);
     }
-}
\ No newline at end of file
+}
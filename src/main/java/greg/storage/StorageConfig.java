@@ -0,0 +1,28 @@
+package greg.storage;
+
+/**
+ * Tunable settings for {@link Storage}.
+ * <p>
+ * Fields start at sensible defaults; callers only override the ones they care about.
+ */
+public class StorageConfig {
+
+    // when journaled mutations reach the disk
+    public DurabilityMode durability = DurabilityMode.PER_COMMAND;
+    public long flushIntervalMillis = 1_000;
+
+    // journal compaction thresholds
+    public int maxJournalRecords = 10_000;
+    public long maxJournalBytes = 4L * 1024 * 1024;
+
+    // decode tasks from a text save file only when accessed, keeping this many cached
+    public boolean lazyLoad = false;
+    public int lazyCacheTasks = 10_000;
+
+    // keep loaded tasks in primitive columns (greg.model.ColumnarTaskStore) rather than as objects;
+    // ignored when lazyLoad is set
+    public boolean columnarTasks = false;
+
+    // share one String between tasks with equal descriptions (greg.model.DescriptionPool)
+    public boolean internDescriptions = false;
+}
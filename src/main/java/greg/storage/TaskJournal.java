@@ -0,0 +1,445 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * Append-only log of task mutations recorded on top of a snapshot file.
+ * <p>
+ * Each mutation is stored as one short line, so recording a change costs O(1) I/O
+ * regardless of the size of the task list. The first line of a journal names the
+ * snapshot it was started against. A {@code REBASE} record is written when the snapshot
+ * is replaced by a compaction while the journal is still being appended to. A journal
+ * that matches neither the current snapshot nor one of its rebases has already been
+ * folded into the snapshot and is ignored on replay.
+ * <p>
+ * Records are buffered in memory until {@link #flush()} is called, so a burst of
+ * mutations can be written with a single append. A batch of marks or deletes is a single
+ * record listing the task numbers as ranges, all numbered as before the batch. An
+ * {@code INSERT} puts a task back at a given task number, e.g. when a delete is undone.
+ * <pre>
+ * BASE | snapshot-size | snapshot-modified-millis
+ * ADD | T | 0 | read book
+ * MARK | 3
+ * UNMARK | 3
+ * DELETE | 2
+ * DELETE | 4-6,9
+ * INSERT | 2 | T | 0 | go gym
+ * REBASE | snapshot-size | snapshot-modified-millis
+ * </pre>
+ */
+public class TaskJournal {
+
+    private static final String DELIMITER = " | ";
+    private static final String DELIMITER_REGEX = "\\s*\\|\\s*";
+
+    private static final String OP_BASE = "BASE";
+    private static final String OP_REBASE = "REBASE";
+    private static final String OP_ADD = "ADD";
+    private static final String OP_MARK = "MARK";
+    private static final String OP_UNMARK = "UNMARK";
+    private static final String OP_DELETE = "DELETE";
+    private static final String OP_INSERT = "INSERT";
+
+    private final File file;
+    private final File snapshot;
+    private final StringBuilder pending = new StringBuilder();
+
+    private int recordCount;
+
+    /**
+     * Creates a journal stored in the given file, recording changes made on top of {@code snapshot}.
+     *
+     * @param file journal file
+     * @param snapshot snapshot file the journal applies to
+     */
+    public TaskJournal(File file, File snapshot) {
+        this.file = file;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Records that a task was appended to the end of the list.
+     *
+     * @param task added task
+     */
+    public void appendAdd(Task task) {
+        append(OP_ADD + DELIMITER + task.toSaveString());
+    }
+
+    /**
+     * Records that the task at the given position was marked or unmarked.
+     *
+     * @param oneIndexedIndex 1-indexed task number
+     * @param isDone new completion status
+     */
+    public void appendMark(int oneIndexedIndex, boolean isDone) {
+        append((isDone ? OP_MARK : OP_UNMARK) + DELIMITER + oneIndexedIndex);
+    }
+
+    /**
+     * Records that the tasks at the given positions were all marked or unmarked.
+     *
+     * @param oneIndexedIndices ascending 1-indexed task numbers
+     * @param isDone new completion status
+     */
+    public void appendMark(int[] oneIndexedIndices, boolean isDone) {
+        append((isDone ? OP_MARK : OP_UNMARK) + DELIMITER + encodeRanges(oneIndexedIndices));
+    }
+
+    /**
+     * Records that the task at the given position was deleted.
+     *
+     * @param oneIndexedIndex 1-indexed task number
+     */
+    public void appendDelete(int oneIndexedIndex) {
+        append(OP_DELETE + DELIMITER + oneIndexedIndex);
+    }
+
+    /**
+     * Records that the tasks at the given positions were deleted together.
+     *
+     * @param oneIndexedIndices ascending 1-indexed task numbers, as before the deletion
+     */
+    public void appendDelete(int[] oneIndexedIndices) {
+        append(OP_DELETE + DELIMITER + encodeRanges(oneIndexedIndices));
+    }
+
+    /**
+     * Records that a task was inserted so that it has the given position.
+     *
+     * @param oneIndexedIndex 1-indexed task number of the inserted task
+     * @param task inserted task
+     */
+    public void appendInsert(int oneIndexedIndex, Task task) {
+        append(OP_INSERT + DELIMITER + oneIndexedIndex + DELIMITER + task.toSaveString());
+    }
+
+    /**
+     * Applies every recorded mutation, in order, to tasks loaded from the snapshot.
+     * <p>
+     * A trailing record without a line terminator was torn by a crash mid-append and is skipped.
+     * A journal that does not apply to the current snapshot is stale and is discarded.
+     *
+     * @param tasks tasks loaded from the snapshot, updated in place
+     * @throws GregException if the journal cannot be read or contains an invalid record
+     */
+    public synchronized void replay(List<Task> tasks) throws GregException {
+        recordCount = 0;
+        if (!file.exists()) {
+            return;
+        }
+
+        String[] lines = readLines();
+        if (!appliesTo(lines, fingerprint(snapshot))) {
+            clear();
+            return;
+        }
+
+        for (int i = 1; i < lines.length; i++) {
+            if (!lines[i].isBlank()) {
+                applyRecord(tasks, lines[i].trim(), i + 1);
+            }
+        }
+    }
+
+    /**
+     * Appends the records on disk, unchanged, to another file, e.g. to set them aside when they
+     * can no longer be applied.
+     *
+     * @param target file to append to; created if missing
+     * @return whether there were any records to copy
+     * @throws GregException if the records cannot be copied
+     */
+    public synchronized boolean copyTo(File target) throws GregException {
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            Files.write(target.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            return true;
+        } catch (IOException e) {
+            throw new GregException("Failed to copy journal " + file.getPath() + " to: " + target.getPath());
+        }
+    }
+
+    /**
+     * Discards all recorded mutations, typically after they were folded into a new snapshot.
+     *
+     * @throws GregException if the journal cannot be deleted
+     */
+    public synchronized void clear() throws GregException {
+        try {
+            Files.deleteIfExists(file.toPath());
+            pending.setLength(0);
+            recordCount = 0;
+        } catch (IOException e) {
+            throw new GregException("Failed to clear journal: " + file.getPath());
+        }
+    }
+
+    /**
+     * Writes all buffered records to disk in a single append.
+     *
+     * @throws GregException if the records cannot be written; they stay buffered for a retry
+     */
+    public synchronized void flush() throws GregException {
+        if (pending.length() == 0) {
+            return;
+        }
+        writeRecords(pending);
+        pending.setLength(0);
+    }
+
+    /**
+     * Returns whether there are buffered records that have not been flushed yet.
+     *
+     * @return true if a flush would write something
+     */
+    public synchronized boolean isDirty() {
+        return pending.length() > 0;
+    }
+
+    /**
+     * Returns the number of mutations recorded since the journal was last cleared or rotated.
+     *
+     * @return record count
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the size of the journal in bytes, including records not flushed yet.
+     *
+     * @return approximate journal size
+     */
+    public synchronized long getSizeBytes() {
+        return file.length() + pending.length();
+    }
+
+    /**
+     * Returns whether the journal file currently exists.
+     *
+     * @return true if there are records on disk
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Moves all current records into {@code segment} and starts an empty journal.
+     *
+     * @param segment journal that receives the current records; must not exist yet
+     * @throws GregException if the journal cannot be moved
+     */
+    public synchronized void rotateTo(TaskJournal segment) throws GregException {
+        flush();
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            Files.move(file.toPath(), segment.file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            segment.recordCount = recordCount;
+            recordCount = 0;
+        } catch (IOException e) {
+            throw new GregException("Failed to rotate journal: " + file.getPath());
+        }
+    }
+
+    /**
+     * Installs {@code replacement} as the new snapshot while no record can be appended.
+     * <p>
+     * If this journal already has records, a {@code REBASE} naming the replacement is written
+     * first, so those records stay valid whether or not the swap survives a crash.
+     *
+     * @param replacement fully written snapshot to move over the current one
+     * @throws GregException if the rebase record or the swap fails
+     */
+    public synchronized void swapSnapshot(File replacement) throws GregException {
+        if (file.exists()) {
+            writeRecords(OP_REBASE + DELIMITER + fingerprint(replacement) + '\n');
+        }
+
+        SnapshotFiles.replace(replacement, snapshot);
+    }
+
+    private synchronized void append(String record) {
+        pending.append(record).append('\n');
+        recordCount++;
+    }
+
+    private void writeRecords(CharSequence records) throws GregException {
+        StringBuilder sb = new StringBuilder();
+        if (!file.exists() || file.length() == 0) {
+            sb.append(OP_BASE).append(DELIMITER).append(fingerprint(snapshot)).append('\n');
+        }
+        sb.append(records);
+
+        try {
+            Files.writeString(file.toPath(), sb, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new GregException("Failed to append to journal: " + file.getPath());
+        }
+    }
+
+    private String[] readLines() throws GregException {
+        String content;
+        try {
+            content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new GregException("Failed to read journal: " + file.getPath());
+        }
+
+        int end = content.lastIndexOf('\n');
+        if (end < 0) {
+            return new String[0];
+        }
+        return content.substring(0, end).split("\n");
+    }
+
+    private static String fingerprint(File snapshotFile) {
+        return snapshotFile.length() + DELIMITER + snapshotFile.lastModified();
+    }
+
+    private static boolean appliesTo(String[] lines, String snapshotFingerprint) {
+        if (lines.length == 0) {
+            return false;
+        }
+
+        if (lines[0].trim().equals(OP_BASE + DELIMITER + snapshotFingerprint)) {
+            return true;
+        }
+
+        String rebase = OP_REBASE + DELIMITER + snapshotFingerprint;
+        for (String line : lines) {
+            if (line.trim().equals(rebase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyRecord(List<Task> tasks, String record, int lineNumber) throws GregException {
+        String[] parts = record.split(DELIMITER_REGEX, 2);
+        if (parts.length < 2) {
+            throw corrupted(lineNumber);
+        }
+
+        switch (parts[0]) {
+            case OP_ADD:
+                tasks.add(Task.fromSaveString(parts[1]));
+                break;
+
+            case OP_MARK:
+            case OP_UNMARK:
+                for (int idx : toZeroIndices(parts[1], tasks.size(), lineNumber)) {
+                    tasks.get(idx).mark(parts[0].equals(OP_MARK));
+                }
+                break;
+
+            case OP_DELETE: {
+                int[] indices = toZeroIndices(parts[1], tasks.size(), lineNumber);
+                if (indices.length == 1) {
+                    tasks.remove(indices[0]);
+                    break;
+                }
+                // One pass instead of shifting the rest of the list once per deleted task. Removing
+                // the nulls as elements lets a lazily loaded list skip decoding the other tasks.
+                for (int idx : indices) {
+                    tasks.set(idx, null);
+                }
+                tasks.removeAll(Collections.singletonList(null));
+                break;
+            }
+
+            case OP_INSERT: {
+                String[] insert = parts[1].split(DELIMITER_REGEX, 2);
+                int idx;
+                try {
+                    idx = Integer.parseInt(insert[0]) - 1;
+                } catch (NumberFormatException e) {
+                    throw corrupted(lineNumber);
+                }
+                if (insert.length < 2 || idx < 0 || idx > tasks.size()) {
+                    throw corrupted(lineNumber);
+                }
+                tasks.add(idx, Task.fromSaveString(insert[1]));
+                break;
+            }
+
+            case OP_REBASE:
+                return;
+
+            default:
+                throw corrupted(lineNumber);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Parses task numbers such as {@code "2"} or {@code "4-6,9"} into ascending 0-indexed positions.
+     */
+    private int[] toZeroIndices(String raw, int size, int lineNumber) throws GregException {
+        int[] indices = new int[8];
+        int count = 0;
+        try {
+            for (String range : raw.split(",")) {
+                String[] bounds = range.split("-", 2);
+                int first = Integer.parseInt(bounds[0].trim()) - 1;
+                int last = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) - 1 : first;
+                if (first < 0 || last >= size || first > last || (count > 0 && first <= indices[count - 1])) {
+                    throw corrupted(lineNumber);
+                }
+                for (int idx = first; idx <= last; idx++) {
+                    if (count == indices.length) {
+                        indices = Arrays.copyOf(indices, count * 2);
+                    }
+                    indices[count++] = idx;
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw corrupted(lineNumber);
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Writes ascending task numbers as comma-separated runs, e.g. {@code 4, 5, 6, 9} as {@code "4-6,9"}.
+     */
+    private static String encodeRanges(int[] numbers) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numbers.length; ) {
+            int j = i;
+            while (j + 1 < numbers.length && numbers[j + 1] == numbers[j] + 1) {
+                j++;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(numbers[i]);
+            if (j > i) {
+                sb.append('-').append(numbers[j]);
+            }
+            i = j + 1;
+        }
+        return sb.toString();
+    }
+
+    private GregException corrupted(int lineNumber) {
+        return new GregException("Corrupted journal record at line " + lineNumber + ": " + file.getPath());
+    }
+}
@@ -0,0 +1,70 @@
+package greg.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import greg.exception.GregException;
+import greg.model.Task;
+
+/**
+ * The human-readable save format: one {@link Task#toSaveString()} line per task, with a header
+ * and a checksum line after every block of about 64 KB (see {@link SaveFileChecksums}).
+ * Files are loaded through a {@link MappedTaskReader}.
+ */
+class TextSaveFormat implements SaveFormat {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    @Override
+    public void write(List<Task> tasks, WritableByteChannel channel) throws IOException {
+        writeFully(channel, SaveFileChecksums.header(tasks.size()).getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+        for (Task task : tasks) {
+            chunk.append(task.toSaveString()).append('\n');
+            if (chunk.length() >= CHUNK_SIZE) {
+                writeBlock(channel, chunk);
+            }
+        }
+        if (chunk.length() > 0) {
+            writeBlock(channel, chunk);
+        }
+    }
+
+    @Override
+    public List<Task> read(File source) throws GregException {
+        return new MappedTaskReader().read(source);
+    }
+
+    @Override
+    public List<Task> read(File source, LoadReport report) throws GregException {
+        return new MappedTaskReader().read(source, report);
+    }
+
+    @Override
+    public VerifyReport verify(File source) throws GregException {
+        return new MappedTaskReader().verify(source);
+    }
+
+    private static void writeBlock(WritableByteChannel channel, StringBuilder chunk) throws IOException {
+        byte[] block = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(block);
+
+        writeFully(channel, block);
+        writeFully(channel, SaveFileChecksums.checksumLine(crc.getValue()).getBytes(StandardCharsets.UTF_8));
+        chunk.setLength(0);
+    }
+
+    private static void writeFully(WritableByteChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
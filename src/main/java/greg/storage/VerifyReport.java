@@ -0,0 +1,65 @@
+package greg.storage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of checking a save file's record count and block checksums without loading it.
+ */
+public class VerifyReport {
+
+    private final String path;
+    private final boolean hasChecksums;
+    private final int recordCount;
+    private final int blockCount;
+    private final List<String> problems;
+    private final long durationMillis;
+
+    VerifyReport(String path, boolean hasChecksums, int recordCount, int blockCount, List<String> problems,
+            long durationMillis) {
+        this.path = path;
+        this.hasChecksums = hasChecksums;
+        this.recordCount = recordCount;
+        this.blockCount = blockCount;
+        this.problems = problems;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns whether the file carries a header and checksums that could be verified.
+     *
+     * @return false for files written without them, which cannot be verified
+     */
+    public boolean hasChecksums() {
+        return hasChecksums;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Returns one message per problem found, such as {@code "line 40: Checksum mismatch ..."}.
+     *
+     * @return unmodifiable list of problems; empty if the file is intact
+     */
+    public List<String> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    public boolean isIntact() {
+        return problems.isEmpty();
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
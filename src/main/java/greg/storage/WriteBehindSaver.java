@@ -0,0 +1,84 @@
+package greg.storage;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import greg.exception.GregException;
+
+/**
+ * Flushes buffered journal records on a background thread at a fixed interval.
+ * <p>
+ * Commands only mark the journal dirty; however many mutations arrive within one interval,
+ * they reach the disk in a single append. A failed flush keeps the records buffered for the
+ * next tick and is reported to the caller on its next mutation.
+ */
+class WriteBehindSaver {
+
+    private final TaskJournal journal;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+
+    private GregException lastError;
+
+    /**
+     * Creates a saver for the given journal. No thread is started until {@link #start()}.
+     *
+     * @param journal journal whose buffered records are flushed
+     * @param intervalMillis minimum time between two flushes
+     */
+    WriteBehindSaver(TaskJournal journal, long intervalMillis) {
+        this.journal = journal;
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "greg-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        executor.scheduleWithFixedDelay(this::flushIfDirty, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread, waiting for an in-progress flush to finish.
+     */
+    void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(intervalMillis + 5_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rethrows, once, the error from the most recent failed background flush.
+     *
+     * @throws GregException if the last background flush failed
+     */
+    synchronized void checkHealthy() throws GregException {
+        if (lastError == null) {
+            return;
+        }
+        GregException error = lastError;
+        lastError = null;
+        throw error;
+    }
+
+    private void flushIfDirty() {
+        if (!journal.isDirty()) {
+            return;
+        }
+
+        try {
+            journal.flush();
+        } catch (GregException e) {
+            synchronized (this) {
+                lastError = e;
+            }
+        }
+    }
+}
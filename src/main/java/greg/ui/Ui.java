@@ -1,8 +1,14 @@
 package greg.ui;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import greg.model.DescriptionPoolStats;
+import greg.model.RankedMatches;
 import greg.model.Task;
+import greg.storage.CompactionStats;
+import greg.storage.LoadReport;
+import greg.storage.VerifyReport;
 
 /**
  * Provides user-facing messages for the Greg task manager.
@@ -19,6 +25,9 @@ public class Ui {
     private static final String MSG_NO_MATCHES = "No matching tasks found.";
     private static final String MSG_MATCHES_HEADER = "Here are the matching tasks in your list:";
 
+    private static final int MAX_LOAD_ERRORS_SHOWN = 5;
+    private static final int MAX_BATCH_TASKS_SHOWN = 5;
+
     /**
      * Returns the welcome message shown at application startup.
      *
@@ -55,6 +64,22 @@ public class Ui {
         );
     }
 
+    /**
+     * Formats a message indicating an event has been added, warning about any events it clashes with.
+     *
+     * @param event the event that was added
+     * @param taskCount the updated total number of tasks
+     * @param clashes other events whose time overlaps the new one
+     * @return formatted confirmation message
+     */
+    public String getEventAdded(Task event, int taskCount, List<Task> clashes) {
+        String added = getTaskAdded(event, taskCount);
+        if (clashes.isEmpty()) {
+            return added;
+        }
+        return added + "\n" + getWarning("It clashes with:\n" + formatNumberedTasks(clashes));
+    }
+
     /**
      * Formats a message indicating a task has been deleted.
      *
@@ -97,16 +122,99 @@ public class Ui {
     }
 
     /**
-     * Formats the full task list for display.
+     * Formats a message indicating a batch of tasks has been marked or unmarked.
+     *
+     * @param tasks the updated tasks
+     * @param isDone new completion status
+     * @return formatted confirmation message listing the first few tasks
+     */
+    public String getTasksMarked(List<Task> tasks, boolean isDone) {
+        if (tasks.isEmpty()) {
+            return "There were no tasks to " + (isDone ? "mark." : "unmark.");
+        }
+        String header = isDone
+                ? "Nice! I've marked these " + tasks.size() + " task(s) as done:"
+                : "OK, I've marked these " + tasks.size() + " task(s) as not done yet:";
+        return header + formatFirstTasks(tasks);
+    }
+
+    /**
+     * Formats a message indicating a batch of tasks has been deleted.
+     *
+     * @param deletedTasks the tasks that were removed
+     * @param taskCount the updated total number of tasks
+     * @return formatted confirmation message listing the first few tasks
+     */
+    public String getTasksDeleted(List<Task> deletedTasks, int taskCount) {
+        if (deletedTasks.isEmpty()) {
+            return "There were no tasks to delete.";
+        }
+        return "Noted. I've removed these " + deletedTasks.size() + " task(s):" + formatFirstTasks(deletedTasks)
+                + "\nNow you have " + taskCount + " tasks in the list.";
+    }
+
+    /**
+     * Formats a message indicating the last change was undone.
+     *
+     * @param change description of the command that was undone
+     * @param taskCount the updated total number of tasks
+     * @return formatted confirmation message
+     */
+    public String getUndone(String change, int taskCount) {
+        return "Undone: " + change + "\nNow you have " + taskCount + " tasks in the list.";
+    }
+
+    /**
+     * Formats a message indicating an undone change was made again.
+     *
+     * @param change description of the command that was redone
+     * @param taskCount the updated total number of tasks
+     * @return formatted confirmation message
+     */
+    public String getRedone(String change, int taskCount) {
+        return "Redone: " + change + "\nNow you have " + taskCount + " tasks in the list.";
+    }
+
+    public String getNothingToUndo() {
+        return "There is nothing to undo.";
+    }
+
+    public String getNothingToRedo() {
+        return "There is nothing to redo.";
+    }
+
+    /**
+     * Formats one page of the task list. Only the tasks on the page are formatted, and a footer
+     * tells how to see the other pages if there are any.
      *
      * @param tasks list of tasks
-     * @return formatted task list
+     * @param page 1-indexed page number
+     * @param pageSize tasks per page (positive)
+     * @return formatted page
      */
-    public String getTaskList(List<Task> tasks) {
+    public String getTaskListPage(List<Task> tasks, int page, int pageSize) {
         if (tasks.isEmpty()) {
             return MSG_EMPTY_TASK_LIST;
         }
-        return formatNumberedTasks(tasks);
+        int pageCount = (int) ((tasks.size() + (long) pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            return "There is no page " + page + "; the list has " + pageCount + " page(s) of "
+                    + pageSize + " tasks.";
+        }
+
+        int from = (int) Math.min((long) (page - 1) * pageSize, tasks.size());
+        int to = (int) Math.min((long) from + pageSize, tasks.size());
+        StringBuilder sb = new StringBuilder();
+        appendNumberedTasks(sb, tasks, from, to);
+        if (pageCount > 1) {
+            sb.append("\n\nPage ").append(page).append(" of ").append(pageCount)
+                    .append(" (tasks ").append(from + 1).append("-").append(to)
+                    .append(" of ").append(tasks.size()).append(").");
+            if (page < pageCount) {
+                sb.append(" Type \"list ").append(page + 1).append("\" for the next page.");
+            }
+        }
+        return sb.toString();
     }
 
     /**
@@ -122,6 +230,71 @@ public class Ui {
         return MSG_MATCHES_HEADER + "\n" + formatNumberedTasks(matches);
     }
 
+    /**
+     * Formats the best matches of a ranked search.
+     *
+     * @param matches best matches, best first, and the total number of matches
+     * @return formatted search results
+     */
+    public String getRankedResults(RankedMatches matches) {
+        if (matches.getTasks().isEmpty()) {
+            return MSG_NO_MATCHES;
+        }
+        return "Here are the best " + matches.getTasks().size() + " of " + matches.getMatchCount()
+                + " matching tasks:\n" + formatNumberedTasks(matches.getTasks());
+    }
+
+    /**
+     * Formats the deadlines found by a due query.
+     *
+     * @param due deadlines in due order
+     * @param from first date of the range
+     * @param to last date of the range
+     * @return formatted deadlines
+     */
+    public String getDueResults(List<Task> due, LocalDate from, LocalDate to) {
+        if (due.isEmpty()) {
+            return "No deadlines are due from " + from + " to " + to + ".";
+        }
+        return "Here are the deadlines due from " + from + " to " + to + ":\n" + formatNumberedTasks(due);
+    }
+
+    /**
+     * Formats the next upcoming deadlines.
+     *
+     * @param upcoming deadlines in due order
+     * @return formatted deadlines
+     */
+    public String getUpcomingResults(List<Task> upcoming) {
+        if (upcoming.isEmpty()) {
+            return "You have no upcoming deadlines.";
+        }
+        return "Here are your next " + upcoming.size() + " deadline(s):\n" + formatNumberedTasks(upcoming);
+    }
+
+    /**
+     * Formats the events and deadlines on a date.
+     *
+     * @param date the date
+     * @param events events taking place on the date, in start order
+     * @param deadlines deadlines due on the date, in due order
+     * @return formatted schedule
+     */
+    public String getScheduleOn(LocalDate date, List<Task> events, List<Task> deadlines) {
+        if (events.isEmpty() && deadlines.isEmpty()) {
+            return "Nothing is scheduled on " + date + ".";
+        }
+
+        StringBuilder sb = new StringBuilder("Here is your schedule on ").append(date).append(":");
+        if (!events.isEmpty()) {
+            sb.append("\nEvents:\n").append(formatNumberedTasks(events));
+        }
+        if (!deadlines.isEmpty()) {
+            sb.append("\nDeadlines:\n").append(formatNumberedTasks(deadlines));
+        }
+        return sb.toString();
+    }
+
     /**
      * Returns the help message listing all available commands.
      *
@@ -130,8 +303,8 @@ public class Ui {
     public String getHelp() {
         return """
                 Available commands:
-                  list
-                    - Displays all tasks.
+                  list [page] [--page-size <n>]
+                    - Displays a page of tasks (100 per page by default).
 
                   todo <description>
                     - Adds a todo task.
@@ -142,26 +315,130 @@ public class Ui {
                   event <description> /from yyyy-mm-dd [HHmm] /to yyyy-mm-dd [HHmm]
                     - Adds an event task.
 
-                  mark <task number>
-                    - Marks a task as done.
+                  mark <task number | #handle | range | list | done>
+                    - Marks tasks as done, e.g. mark 3, mark #7, mark 10-20, mark 1,4,9.
 
-                  unmark <task number>
-                    - Marks a task as not done.
+                  unmark <task number | #handle | range | list | done>
+                    - Marks tasks as not done, e.g. unmark 3, unmark 10-20, unmark done.
 
-                  delete <task number>
-                    - Deletes a task.
+                  delete <task number | #handle | range | list | done>
+                    - Deletes tasks, e.g. delete 3, delete #7, delete 10-500, delete done.
+
+                  undo
+                    - Undoes the last add, mark, unmark or delete (up to 100 of them).
+
+                  redo
+                    - Makes the last undone change again.
 
                   find <keyword>
                     - Finds tasks containing the keyword.
 
+                  search <keywords> [/top <n>]
+                    - Lists the n (default 10) tasks that best match the keywords.
+
+                  due yyyy-mm-dd yyyy-mm-dd
+                    - Lists the deadlines due from the first date to the second.
+
+                  upcoming <n>
+                    - Lists the next n deadlines.
+
+                  on yyyy-mm-dd
+                    - Lists the events and deadlines on a date.
+
                   help
                     - Shows this help message.
 
+                  stats
+                    - Shows storage statistics.
+
+                  verify
+                    - Checks the save file for damage.
+
                   bye
                     - Exits the application.
                 """.trim();
     }
 
+    /**
+     * Formats storage statistics for display.
+     *
+     * @param compaction statistics of background journal compactions
+     * @param descriptions statistics of description deduplication
+     * @return formatted statistics
+     */
+    public String getStats(CompactionStats compaction, DescriptionPoolStats descriptions) {
+        StringBuilder sb = new StringBuilder("Storage statistics:\n")
+                .append("Journal compactions: ").append(compaction.getCompactionCount()).append("\n")
+                .append("Last compaction took ").append(compaction.getLastDurationMillis())
+                .append(" ms and reclaimed ").append(compaction.getLastBytesReclaimed()).append(" bytes\n")
+                .append("In total: ").append(compaction.getTotalDurationMillis())
+                .append(" ms, ").append(compaction.getTotalBytesReclaimed()).append(" bytes reclaimed");
+
+        if (descriptions.isEnabled()) {
+            sb.append("\nDescription pool: ").append(descriptions.getDistinctCount())
+                    .append(" distinct description(s), ").append(descriptions.getHitCount())
+                    .append(" of ").append(descriptions.getLookupCount()).append(" shared, about ")
+                    .append(descriptions.getBytesSaved()).append(" bytes saved");
+        }
+
+        if (!compaction.getLastError().isEmpty()) {
+            sb.append("\n").append(getWarning(compaction.getLastError()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats a warning about problems found while loading the save file.
+     *
+     * @param report report of the load
+     * @return formatted warning listing the first few problems
+     */
+    public String getLoadWarning(LoadReport report) {
+        StringBuilder sb = new StringBuilder();
+        if (report.isRestoredFromBackup()) {
+            sb.append("The save file could not be read, so its backup was restored. The unreadable file was kept as ")
+                    .append(report.getUnreadableSnapshotPath()).append(".\n");
+        }
+        if (!report.getErrors().isEmpty()) {
+            sb.append("Found ").append(report.getErrors().size()).append(" problem(s) in the ")
+                    .append(report.getLineCount()).append(" lines of the save file.\n");
+        }
+        if (!report.getQuarantinePath().isEmpty()) {
+            sb.append("Corrupted lines were moved to ").append(report.getQuarantinePath()).append(".\n");
+        }
+        if (!report.getJournalQuarantinePath().isEmpty()) {
+            sb.append("Recent changes could not be applied safely and were moved to ")
+                    .append(report.getJournalQuarantinePath()).append(".\n");
+        }
+        sb.append("Loaded ").append(report.getTaskCount()).append(" task(s) in ")
+                .append(report.getParseMillis()).append(" ms.");
+
+        appendProblems(sb, report.getErrors());
+        return getWarning(sb.toString());
+    }
+
+    /**
+     * Formats the result of verifying the save file.
+     *
+     * @param report report of the verification
+     * @return formatted result, listing the first few problems if any
+     */
+    public String getVerifyResult(VerifyReport report) {
+        if (!report.hasChecksums() && report.isIntact()) {
+            return "The save file has no checksums to verify; all " + report.getRecordCount()
+                    + " task(s) could be read.";
+        }
+        if (report.isIntact()) {
+            return "The save file is intact: " + report.getRecordCount() + " task(s) in "
+                    + report.getBlockCount() + " checksummed block(s), verified in "
+                    + report.getDurationMillis() + " ms.";
+        }
+
+        StringBuilder sb = new StringBuilder("The save file ").append(report.getPath()).append(" is damaged.");
+        appendProblems(sb, report.getProblems());
+        return getWarning(sb.toString());
+    }
+
     /**
      * Formats an error message.
      *
@@ -184,24 +461,56 @@ public class Ui {
 
 
 
+    private void appendProblems(StringBuilder sb, List<String> problems) {
+        for (int i = 0; i < Math.min(problems.size(), MAX_LOAD_ERRORS_SHOWN); i++) {
+            sb.append("\n").append(problems.get(i));
+        }
+        if (problems.size() > MAX_LOAD_ERRORS_SHOWN) {
+            sb.append("\n...and ").append(problems.size() - MAX_LOAD_ERRORS_SHOWN).append(" more");
+        }
+    }
+
+    private String formatFirstTasks(List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(tasks.size(), MAX_BATCH_TASKS_SHOWN); i++) {
+            sb.append("\n").append(tasks.get(i));
+        }
+        if (tasks.size() > MAX_BATCH_TASKS_SHOWN) {
+            sb.append("\n...and ").append(tasks.size() - MAX_BATCH_TASKS_SHOWN).append(" more");
+        }
+        return sb.toString();
+    }
+
     private String formatSingleTaskMessage(String header, Task task) {
         return header + "\n" + task;
     }
 
     private String formatTaskCountMessage(String header, Task task, int taskCount) {
         return header + "\n"
-                + task + "\n"
+                + task + " (#" + task.getId() + ")\n"
                 + "Now you have " + taskCount + " tasks in the list.";
     }
 
     private String formatNumberedTasks(List<Task> tasks) {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tasks.size(); i++) {
+        appendNumberedTasks(sb, tasks, 0, tasks.size());
+        return sb.toString();
+    }
+
+    /**
+     * Appends {@code tasks[from, to)}, one per line, numbering each task by its 1-indexed position
+     * in {@code tasks}, e.g. {@code "3. [T][ ] read book (#7)"}.
+     */
+    private void appendNumberedTasks(StringBuilder sb, List<Task> tasks, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Task task = tasks.get(i);
+            if (i > from) {
+                sb.append("\n");
+            }
             sb.append(i + 1).append(". ")
-                    .append(tasks.get(i))
-                    .append("\n");
+                    .append(task)
+                    .append(" (#").append(task.getId()).append(")");
         }
-        return sb.toString().trim();
     }
 
     private String safeMessage(String message) {
@@ -0,0 +1,58 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+
+import greg.logic.Greg;
+import greg.model.Task;
+import greg.storage.DurabilityMode;
+import greg.storage.Storage;
+import greg.storage.StorageConfig;
+
+public class BatchLauncherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void run_scriptEndingWithBye_stopsAtByeAndSavesChanges() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.ON_EXIT;
+        Greg greg = new Greg(path, config);
+
+        String script = "todo read book\n\n  todo go gym\nmark 1\nbye\ntodo never run\n";
+        StringWriter out = new StringWriter();
+        int count = BatchLauncher.run(greg, new BufferedReader(new StringReader(script)), out, 0);
+
+        assertEquals(4, count);
+        assertTrue(out.toString().contains("[T][X] read book"));
+        List<Task> saved = new Storage(path).loadAll();
+        assertEquals(2, saved.size());
+        assertTrue(saved.get(0).isMarked());
+    }
+
+    @Test
+    public void run_flushEvery_savesProgressBeforeTheEnd() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.ON_EXIT;
+        Greg greg = new Greg(path, config);
+
+        String script = "todo a\ntodo b\ntodo c\n";
+        BatchLauncher.run(greg, new BufferedReader(new StringReader(script)), new StringWriter(), 2);
+
+        assertEquals(2, new Storage(path).loadAll().size());
+        greg.shutdown();
+        assertEquals(3, new Storage(path).loadAll().size());
+    }
+}
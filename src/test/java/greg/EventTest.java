@@ -3,6 +3,7 @@ package greg;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import greg.model.Event;
@@ -84,4 +85,20 @@ public class EventTest {
         assertThrows(GregException.class,
                 () -> new Event("x", "2026-01-30 abcd", "2026-02-03"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void constructor_sameDates_shareDateInstances() throws GregException {
+        Event first = new Event("camp", "2026-03-10 0900", "2026-03-12");
+        Event second = new Event("hike", " 2026-03-10", "2026-03-12\t1700 ");
+        assertSame(first.getFromDate(), second.getFromDate());
+        assertSame(first.getToDate(), second.getToDate());
+        assertEquals("1700", second.getToTime());
+    }
+
+    @Test
+    public void constructor_impossibleDate_reportsDateBeforeTime() {
+        GregException e = assertThrows(GregException.class,
+                () -> new Event("x", "2026-02-30 abcd", "2026-03-02"));
+        assertEquals("Error: Invalid date format. Use yyyy-mm-dd [HHmm].", e.getMessage());
+    }
+}
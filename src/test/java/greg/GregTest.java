@@ -0,0 +1,69 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import greg.logic.Greg;
+import greg.model.Task;
+import greg.storage.Storage;
+
+public class GregTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void undoRedo_addMarkDelete_restoresStateAndSurvivesReload() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        Greg greg = new Greg(path);
+        greg.getResponse("todo read book");
+        greg.getResponse("todo go gym");
+        greg.getResponse("todo buy milk");
+        greg.getResponse("mark 1-2");
+        greg.getResponse("delete 1,3");
+
+        assertTrue(greg.getResponse("undo").startsWith("Undone: delete 2 tasks"));
+        assertEquals(List.of("[T][X] read book", "[T][X] go gym", "[T][ ] buy milk"), savedTasks(path));
+
+        greg.getResponse("undo");
+        assertEquals(List.of("[T][ ] read book", "[T][ ] go gym", "[T][ ] buy milk"), savedTasks(path));
+
+        greg.getResponse("redo");
+        greg.getResponse("redo");
+        assertEquals(List.of("[T][X] go gym"), savedTasks(path));
+        assertEquals("There is nothing to redo.", greg.getResponse("redo"));
+    }
+
+    @Test
+    public void undo_newChangeAfterUndo_dropsRedo() throws Exception {
+        Greg greg = new Greg(tempDir.resolve("greg.txt").toString());
+        greg.getResponse("todo read book");
+        greg.getResponse("mark 1");
+        greg.getResponse("mark 1");
+
+        assertTrue(greg.getResponse("undo").startsWith("Undone: mark"));
+        greg.getResponse("todo go gym");
+
+        assertEquals("There is nothing to redo.", greg.getResponse("redo"));
+        greg.getResponse("undo");
+        greg.getResponse("undo");
+        assertFalse(greg.getResponse("list").contains("read book"));
+        assertEquals("There is nothing to undo.", greg.getResponse("undo"));
+    }
+
+    private static List<String> savedTasks(String path) throws Exception {
+        List<String> tasks = new ArrayList<>();
+        for (Task task : new Storage(path).loadAll()) {
+            tasks.add(task.toString());
+        }
+        return tasks;
+    }
+}
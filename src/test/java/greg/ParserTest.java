@@ -23,6 +23,17 @@ public class ParserTest {
         assertEquals(CommandType.LIST, cmd.type);
     }
 
+    @Test
+    public void parse_listWithPageAndPageSize_setsBoth() throws GregException {
+        ParsedCommand cmd = Parser.parse("list 3 --page-size 200");
+        assertEquals(CommandType.LIST, cmd.type);
+        assertEquals(3, cmd.index);
+        assertEquals(200, cmd.count);
+
+        assertEquals(1, Parser.parse("list").index);
+        assertThrows(GregException.class, () -> Parser.parse("list --page-size 0"));
+    }
+
     @Test
     public void parse_mark_validIndex_setsIndex() throws GregException {
         ParsedCommand cmd = Parser.parse("mark 2");
@@ -30,6 +41,26 @@ public class ParserTest {
         assertEquals(2, cmd.index);
     }
 
+    @Test
+    public void parse_delete_taskId_setsIdFlag() throws GregException {
+        ParsedCommand cmd = Parser.parse("delete #17");
+        assertEquals(CommandType.DELETE, cmd.type);
+        assertEquals(17, cmd.index);
+        assertTrue(cmd.isTaskId);
+        assertFalse(Parser.parse("delete 17").isTaskId);
+    }
+
+    @Test
+    public void parse_due_validRange_setsDates() throws GregException {
+        ParsedCommand cmd = Parser.parse("due 2026-03-01  2026-03-07");
+        assertEquals(CommandType.DUE, cmd.type);
+        assertEquals("2026-03-01", cmd.fromDate.toString());
+        assertEquals("2026-03-07", cmd.toDate.toString());
+
+        GregException e = assertThrows(GregException.class, () -> Parser.parse("due 2026-03-07 2026-03-01"));
+        assertEquals("Error: The first date of a due range cannot be after the second.", e.getMessage());
+    }
+
     @Test
     public void parse_deadline_valid_setsDescriptionAndByRaw() throws GregException {
         ParsedCommand cmd = Parser.parse("deadline return book /by 2026-03-02 1700");
@@ -61,6 +92,68 @@ public class ParserTest {
         assertEquals("Error: Invalid task number.", e.getMessage());
     }
 
+    @Test
+    public void parse_deleteRangesAndList_sortsAndRemovesDuplicates() throws GregException {
+        ParsedCommand cmd = Parser.parse("delete 8,1-3,2");
+        assertEquals(CommandType.DELETE, cmd.type);
+        assertTrue(cmd.isBatch());
+        assertArrayEquals(new int[] {1, 3, 8, 8}, cmd.ranges);
+        assertArrayEquals(new int[] {1, 2, 3, 8}, cmd.toTaskNumbers(8));
+        assertThrows(GregException.class, () -> cmd.toTaskNumbers(7));
+
+        ParsedCommand done = Parser.parse("mark done");
+        assertTrue(done.isAllDone);
+        assertFalse(Parser.parse("mark 2").isBatch());
+    }
+
+    @Test
+    public void parse_manyHugeRanges_keepsThemAsRanges() throws GregException {
+        ParsedCommand cmd = Parser.parse("delete " + "1-9999999,".repeat(40) + "2000000000");
+        assertArrayEquals(new int[] {1, 9999999, 2000000000, 2000000000}, cmd.ranges);
+        GregException e = assertThrows(GregException.class, () -> cmd.toTaskNumbers(100));
+        assertEquals("Error: Invalid task number.", e.getMessage());
+    }
+
+    @Test
+    public void parse_deleteBackwardRange_throws() {
+        for (String input : new String[] {"delete 5-3", "delete 0-2", "mark 1,,2", "unmark 1-2-3"}) {
+            assertThrows(GregException.class, () -> Parser.parse(input));
+        }
+    }
+
+    @Test
+    public void parse_onlyCommas_throws() {
+        for (String input : new String[] {"mark ,", "delete ,,,"}) {
+            GregException e = assertThrows(GregException.class, () -> Parser.parse(input));
+            assertTrue(e.getMessage().startsWith("Error: Invalid task numbers."));
+        }
+    }
+
+    @Test
+    public void parse_keywordWithoutRequiredSeparator_matchesKeywordRules() throws GregException {
+        assertEquals(CommandType.HELP, Parser.parse("helpme").type);
+        assertEquals(CommandType.LIST, Parser.parse("list").type);
+        assertEquals(CommandType.UNDO, Parser.parse("undo").type);
+        assertEquals(CommandType.REDO, Parser.parse("redo").type);
+        for (String input : new String[] {"todo", "bye now", "marks 2", "stats ", "list --page-size", "undo 2"}) {
+            assertThrows(GregException.class, () -> Parser.parse(input));
+        }
+    }
+
+    @Test
+    public void parse_event_fieldsTrimmedAroundMarkers() throws GregException {
+        ParsedCommand cmd = Parser.parse("event  camp\t/from 2026-03-10 1800 /to  2026-03-12 ");
+        assertEquals("camp", cmd.description);
+        assertEquals("2026-03-10 1800", cmd.fromRaw);
+        assertEquals("2026-03-12", cmd.toRaw);
+    }
+
+    @Test
+    public void parse_searchTopTooLarge_throws() {
+        GregException e = assertThrows(GregException.class, () -> Parser.parse("search book /top 2000000000"));
+        assertEquals("Error: Search can show at most 10000 results.", e.getMessage());
+    }
+
     @Test
     public void parse_unknownCommand_throws() {
         GregException e = assertThrows(GregException.class,
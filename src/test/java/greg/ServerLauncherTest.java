@@ -0,0 +1,140 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import greg.logic.ConcurrentGreg;
+import greg.model.Task;
+import greg.storage.DurabilityMode;
+import greg.storage.Storage;
+import greg.storage.StorageConfig;
+
+public class ServerLauncherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void handle_commandsThenBye_framesEachResponseAndKeepsGregRunning() throws Exception {
+        ConcurrentGreg greg = new ConcurrentGreg(tempDir.resolve("greg.txt").toString(), new StorageConfig());
+
+        StringWriter out = new StringWriter();
+        String commands = "todo read book\n\nlist\nbye\ntodo never run\n";
+        int count = ServerLauncher.handle(greg, new BufferedReader(new StringReader(commands)), out);
+
+        assertEquals(3, count);
+        String[] responses = out.toString().split("\n\\.\n", -1);
+        assertEquals(5, responses.length);
+        assertTrue(responses[1].contains("[T][ ] read book"));
+        assertTrue(responses[2].contains("1. [T][ ] read book"));
+        assertEquals("", responses[4]);
+        assertTrue(greg.getResponse("list").contains("read book"));
+    }
+
+    @Test
+    public void serve_concurrentClients_runEveryCommandOnce() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.PER_INTERVAL;
+        config.flushIntervalMillis = 20;
+        ConcurrentGreg greg = new ConcurrentGreg(path, config);
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread acceptor = new Thread(() -> ServerLauncher.serve(greg, server));
+        acceptor.start();
+        int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+        int clientCount = 8;
+        int tasksPerClient = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(clientCount);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int c = 0; c < clientCount; c++) {
+            int client = c;
+            results.add(pool.submit(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    readResponse(in);
+                    boolean isConsistent = true;
+                    for (int i = 0; i < tasksPerClient; i++) {
+                        out.write("todo client" + client + " task " + i + "\nfind client" + client + "\n");
+                        out.flush();
+                        readResponse(in);
+                        isConsistent &= countTaskLines(readResponse(in)) == i + 1;
+                    }
+                    out.write("bye\n");
+                    out.flush();
+                    readResponse(in);
+                    return isConsistent;
+                }
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        pool.shutdown();
+        server.close();
+        acceptor.join();
+
+        assertFalse(greg.shutdown().startsWith("Error"));
+        List<Task> saved = new Storage(path).loadAll();
+        assertEquals(clientCount * tasksPerClient, saved.size());
+    }
+
+    @Test
+    public void concurrentGreg_undoOrLazyLoad_refused() {
+        ConcurrentGreg greg = new ConcurrentGreg(tempDir.resolve("greg.txt").toString(), new StorageConfig());
+        greg.getResponse("todo read book");
+        assertTrue(greg.getResponse("undo").startsWith("Error: Undo and redo are not available"));
+        assertTrue(greg.getResponse("list").contains("read book"));
+
+        StorageConfig lazy = new StorageConfig();
+        lazy.lazyLoad = true;
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrentGreg(tempDir.resolve("lazy.txt").toString(), lazy));
+    }
+
+    private static List<String> readResponse(BufferedReader in) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while (!(line = in.readLine()).equals(".")) {
+            lines.add(line.startsWith(".") ? line.substring(1) : line);
+        }
+        return lines;
+    }
+
+    private static int countTaskLines(List<String> lines) {
+        int count = 0;
+        for (String line : lines) {
+            if (line.contains("[T]")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
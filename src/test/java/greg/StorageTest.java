@@ -0,0 +1,449 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import greg.exception.GregException;
+import greg.model.ColumnarTaskStore;
+import greg.model.Deadline;
+import greg.model.DescriptionPool;
+import greg.model.DescriptionPoolStats;
+import greg.model.Event;
+import greg.model.Task;
+import greg.model.TaskList;
+import greg.model.Todo;
+import greg.storage.DurabilityMode;
+import greg.storage.LoadReport;
+import greg.storage.SaveFileConverter;
+import greg.storage.Storage;
+import greg.storage.StorageConfig;
+import greg.storage.VerifyReport;
+import greg.ui.Ui;
+
+public class StorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void loadAll_afterJournaledMutations_replaysOnTopOfSnapshot() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        Storage storage = new Storage(path);
+        storage.saveAll(List.of(new Todo("read book"), new Todo("go gym")));
+
+        storage.appendAdd(new Deadline("return book", "2026-03-02"));
+        storage.appendMark(3, true);
+        storage.appendDelete(1);
+
+        List<Task> loaded = new Storage(path).loadAll();
+        assertEquals(2, loaded.size());
+        assertEquals("[T][ ] go gym", loaded.get(0).toString());
+        assertEquals("[D][X] return book (by: 2026-03-02)", loaded.get(1).toString());
+    }
+
+    @Test
+    public void loadAll_afterBatchedMutations_replaysEachBatch() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        Storage storage = new Storage(path);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.saveAll(tasks);
+
+        storage.appendMark(new int[] {1, 2, 3, 6}, true);
+        storage.appendDelete(new int[] {2, 3, 5});
+        storage.appendMark(new int[] {3}, false);
+
+        List<String> loaded = new ArrayList<>();
+        for (Task task : new Storage(path).loadAll()) {
+            loaded.add(task.toString());
+        }
+        assertEquals(List.of("[T][X] task 1", "[T][ ] task 4", "[T][ ] task 6"), loaded);
+    }
+
+    @Test
+    public void saveAll_foldsJournalIntoSnapshot() throws GregException {
+        String path = tempDir.resolve("greg.txt").toString();
+        Storage storage = new Storage(path);
+        storage.appendAdd(new Todo("read book"));
+
+        List<Task> tasks = new ArrayList<>(storage.loadAll());
+        storage.saveAll(tasks);
+
+        assertEquals(1, new Storage(path).loadAll().size());
+        assertFalse(Files.exists(tempDir.resolve("greg.txt.journal")));
+    }
+
+    @Test
+    public void loadAll_tornTrailingRecord_isIgnored() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        Storage storage = new Storage(path);
+        storage.appendAdd(new Todo("read book"));
+        Files.writeString(tempDir.resolve("greg.txt.journal"), "ADD | T | 0 | half wri",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(1, new Storage(path).loadAll().size());
+    }
+
+    @Test
+    public void appendPastThreshold_compactsJournalInBackground() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        StorageConfig config = new StorageConfig();
+        config.maxJournalRecords = 3;
+        Storage storage = new Storage(path, config);
+        for (int i = 1; i <= 4; i++) {
+            storage.appendAdd(new Todo("task " + i));
+        }
+        storage.appendMark(2, true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (storage.getCompactionStats().getCompactionCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, storage.getCompactionStats().getCompactionCount());
+        List<Task> loaded = new Storage(path).loadAll();
+        assertEquals(4, loaded.size());
+        assertEquals("[T][X] task 2", loaded.get(1).toString());
+    }
+
+    @Test
+    public void onExitDurability_buffersMutationsUntilClose() throws GregException {
+        String path = tempDir.resolve("greg.txt").toString();
+        StorageConfig config = new StorageConfig();
+        config.durability = DurabilityMode.ON_EXIT;
+        Storage storage = new Storage(path, config);
+
+        storage.appendAdd(new Todo("read book"));
+        storage.appendAdd(new Todo("go gym"));
+        assertEquals(0, new Storage(path).loadAll().size());
+
+        storage.close();
+        assertEquals(2, new Storage(path).loadAll().size());
+    }
+
+    @Test
+    public void saveAll_keepsPreviousGenerationForRollback() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        Storage storage = new Storage(file.toString());
+        storage.saveAll(List.of(new Todo("read book")));
+        storage.saveAll(List.of(new Todo("read book"), new Todo("go gym")));
+
+        assertEquals(checksummed("T | 0 | read book\n"), Files.readString(tempDir.resolve("greg.txt.bak")));
+
+        Files.writeString(file, "X | corrupted\n");
+        List<Task> loaded = new Storage(file.toString()).loadAll();
+        assertEquals(1, loaded.size());
+        assertEquals("X | corrupted\n", Files.readString(tempDir.resolve("greg.txt.corrupt")));
+    }
+
+    @Test
+    public void binaryFormat_roundTripsEveryTaskType() throws GregException {
+        String path = tempDir.resolve("greg.bin").toString();
+        Event event = new Event("caf\u00e9 meetup", "2026-01-30 1400", "2026-02-03");
+        event.mark(true);
+        List<Task> tasks = List.of(new Todo("read book"), new Deadline("odd time", "2026-03-02 2599"), event);
+
+        new Storage(path).saveAll(tasks);
+        List<Task> loaded = new Storage(path).loadAll();
+
+        assertEquals(tasks.size(), loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toSaveString(), loaded.get(i).toSaveString());
+        }
+    }
+
+    @Test
+    public void loadAll_binaryWithCorruptedCount_rollsBackToPreviousGeneration() throws Exception {
+        Path file = tempDir.resolve("greg.bin");
+        Storage storage = new Storage(file.toString());
+        storage.saveAll(List.of(new Todo("read book")));
+        storage.saveAll(List.of(new Todo("read book"), new Todo("go gym")));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[5] = 0x7f; // record count is the int after the magic and version
+        Files.write(file, bytes);
+
+        List<Task> loaded = new Storage(file.toString()).loadAll();
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    public void loadAllSkippingCorrupted_rolledBack_warnsAndQuarantinesJournal() throws Exception {
+        Path file = tempDir.resolve("greg.bin");
+        Storage storage = new Storage(file.toString());
+        storage.saveAll(List.of(new Todo("read book")));
+        storage.saveAll(List.of(new Todo("read book"), new Todo("go gym")));
+        storage.appendAdd(new Todo("call mum"));
+        storage.close();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[5] = 0x7f;
+        Files.write(file, bytes);
+
+        Storage reloaded = new Storage(file.toString());
+        assertEquals(1, reloaded.loadAllSkippingCorrupted().size());
+        LoadReport report = reloaded.getLoadReport();
+        assertTrue(report.isRestoredFromBackup());
+        assertEquals(file + ".corrupt", report.getUnreadableSnapshotPath());
+        assertEquals(file + ".journal.quarantine", report.getJournalQuarantinePath());
+        assertTrue(Files.readString(Path.of(report.getJournalQuarantinePath())).contains("call mum"));
+
+        String warning = new Ui().getLoadWarning(report);
+        assertTrue(warning.contains("its backup was restored"));
+        assertTrue(warning.contains(report.getJournalQuarantinePath()));
+        assertFalse(new Storage(file.toString()).loadAllSkippingCorrupted().isEmpty());
+    }
+
+    @Test
+    public void convert_textToBinaryAndBack_preservesTasks() throws Exception {
+        String text = tempDir.resolve("greg.txt").toString();
+        Storage storage = new Storage(text);
+        storage.saveAll(List.of(new Todo("read book")));
+        storage.appendAdd(new Deadline("return book", "2026-03-02 1700"));
+
+        String binary = tempDir.resolve("greg.bin").toString();
+        assertEquals(2, SaveFileConverter.convert(text, binary));
+
+        String back = tempDir.resolve("back.txt").toString();
+        SaveFileConverter.convert(binary, back);
+        assertEquals(checksummed("T | 0 | read book\nD | 0 | return book | 2026-03-02 | 1700\n"),
+                Files.readString(Path.of(back)));
+    }
+
+    @Test
+    public void loadAll_handEditedTextFile_parsesLikeSaveStrings() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        Files.writeString(file, "T|1|read book\r\n\r\n   D  |  0 | return book | 2026-03-02 |   \n"
+                + "E | 0 | camp | 2026-03-10 | 0900 | 2026-03-12 | 1800");
+
+        List<Task> loaded = new Storage(file.toString()).loadAll();
+        assertEquals(3, loaded.size());
+        assertEquals("[T][X] read book", loaded.get(0).toString());
+        assertEquals("[D][ ] return book (by: 2026-03-02)", loaded.get(1).toString());
+        assertEquals("[E][ ] camp (from: 2026-03-10 0900 to: 2026-03-12 1800)", loaded.get(2).toString());
+    }
+
+    @Test
+    public void loadAll_largeFile_keepsOrderAndReportsLineNumber() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 100_000; i++) {
+            content.append("D | 0 | task ").append(i).append(" | 2026-03-02 | 1800\r\n");
+        }
+        Files.writeString(file, content);
+
+        List<Task> loaded = new Storage(file.toString()).loadAll();
+        assertEquals(100_000, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals("task " + (i + 1), loaded.get(i).getDescription());
+        }
+
+        content.append("X | 0 | bad\r\n").append("T | 0 | after\r\n");
+        Files.writeString(file, content);
+        GregException e = assertThrows(GregException.class, () -> new Storage(file.toString()).loadAll());
+        assertEquals("Error: Corrupted save file " + file + " at line 100001: Unknown task type in save file.",
+                e.getMessage());
+    }
+
+    @Test
+    public void loadAllSkippingCorrupted_badLines_quarantinedAndReported() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        Files.writeString(file, "T | 0 | first\nX | 0 | bad type\nD | 0 | no date\nT | 1 | last\n");
+
+        Storage storage = new Storage(file.toString());
+        List<Task> loaded = storage.loadAllSkippingCorrupted();
+        LoadReport report = storage.getLoadReport();
+
+        assertEquals(2, loaded.size());
+        assertEquals("[T][X] last", loaded.get(1).toString());
+        assertEquals(4, report.getLineCount());
+        assertEquals(2, report.getTaskCount());
+        assertEquals(List.of("line 2: Unknown task type in save file.", "line 3: Corrupted deadline line."),
+                report.getErrors());
+        assertEquals("X | 0 | bad type\nD | 0 | no date\n",
+                Files.readString(Path.of(report.getQuarantinePath())));
+
+        // The save file no longer holds the bad lines, so they are reported only once.
+        Storage reloaded = new Storage(file.toString());
+        assertEquals(2, reloaded.loadAllSkippingCorrupted().size());
+        assertFalse(reloaded.getLoadReport().hasErrors());
+    }
+
+    @Test
+    public void loadAllSkippingCorrupted_skippedLine_quarantinesJournalInsteadOfReplaying() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        Storage storage = new Storage(file.toString());
+        storage.saveAll(List.of(new Todo("first"), new Todo("second"), new Todo("third")));
+        storage.appendDelete(2);
+
+        // Corrupt the first task in place, as bit rot would, so the journal still matches the file.
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace("T | 0 | first", "X | 0 | first"));
+        Files.setLastModifiedTime(file, modified);
+
+        Storage reloaded = new Storage(file.toString());
+        List<Task> loaded = reloaded.loadAllSkippingCorrupted();
+        LoadReport report = reloaded.getLoadReport();
+
+        assertEquals(2, loaded.size());
+        assertEquals("[T][ ] second", loaded.get(0).toString());
+        assertEquals("[T][ ] third", loaded.get(1).toString());
+        assertTrue(Files.readString(Path.of(report.getJournalQuarantinePath())).contains("DELETE | 2"));
+        assertEquals(2, new Storage(file.toString()).loadAll().size());
+    }
+
+    @Test
+    public void loadLazily_evictedChangesKept_matchesFullLoad() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        new Storage(path).saveAll(tasks);
+
+        StorageConfig config = new StorageConfig();
+        config.lazyCacheTasks = 1;
+        Storage storage = new Storage(path, config);
+        List<Task> lazy = storage.loadLazily();
+        assertEquals(3000, lazy.size());
+
+        lazy.get(0).mark(true);
+        storage.appendMark(1, true);
+        for (Task task : lazy) {
+            task.getDescription(); // cycles every page through the cache
+        }
+        assertEquals("[T][X] task 1", lazy.get(0).toString());
+
+        assertEquals("task 1500", lazy.remove(1499).getDescription());
+        storage.appendDelete(1500);
+        Task added = new Todo("new task");
+        lazy.add(added);
+        storage.appendAdd(added);
+        assertEquals("task 1501", lazy.get(1499).getDescription());
+
+        List<Task> reloaded = new Storage(path).loadAll();
+        assertEquals(lazy.size(), reloaded.size());
+        for (int i = 0; i < lazy.size(); i++) {
+            assertEquals(reloaded.get(i).toString(), lazy.get(i).toString());
+        }
+        storage.close();
+    }
+
+    @Test
+    public void loadLazily_batchDelete_decodesOnlyDeletedPages() throws Exception {
+        String path = tempDir.resolve("greg.txt").toString();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        new Storage(path).saveAll(tasks);
+
+        StorageConfig config = new StorageConfig();
+        config.lazyCacheTasks = 1000;
+        Storage storage = new Storage(path, config);
+        TaskList list = TaskList.backedBy(storage.loadLazily());
+        int[] deleted = new int[600];
+        for (int i = 0; i < deleted.length; i++) {
+            deleted[i] = i + 1;
+            list.get(i + 1);
+        }
+        storage.close(); // any task read from now on fails
+
+        assertEquals("task 600", list.deleteAll(deleted).get(599).getDescription());
+        assertEquals(2400, list.size());
+    }
+
+    @Test
+    public void verify_damagedBlock_reportedAndLoadFails() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        Storage storage = new Storage(file.toString());
+        storage.saveAll(List.of(new Todo("read book"), new Todo("go gym")));
+        assertTrue(storage.verify().isIntact());
+        assertEquals(2, storage.verify().getRecordCount());
+
+        Files.writeString(file, Files.readString(file).replace("gym", "gem"));
+        VerifyReport report = storage.verify();
+        assertEquals(List.of("line 4: Checksum mismatch in the block ending here."), report.getProblems());
+        Files.delete(tempDir.resolve("greg.txt.bak")); // otherwise loadAll rolls back to it
+        GregException e = assertThrows(GregException.class, () -> new Storage(file.toString()).loadAll());
+        assertEquals("Error: Corrupted save file " + file + " at line 4: Checksum mismatch in the block ending here.",
+                e.getMessage());
+
+        // Tolerant loading keeps the lines that still parse and rewrites the file with fresh checksums.
+        Storage tolerant = new Storage(file.toString());
+        assertEquals(2, tolerant.loadAllSkippingCorrupted().size());
+        assertTrue(tolerant.getLoadReport().hasErrors());
+        assertTrue(tolerant.verify().isIntact());
+    }
+
+    @Test
+    public void verify_truncatedOrAppendedFile_reportsBoth() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        String content = checksummed("T | 0 | read book\n").replace("| 1\n", "| 3\n") + "T | 0 | go gym\n";
+        Files.writeString(file, content);
+
+        assertEquals(List.of("line 4: Task lines from here on are not covered by a checksum.",
+                "line 4: Save file has 2 task lines but its header says 3."),
+                new Storage(file.toString()).verify().getProblems());
+    }
+
+    @Test
+    public void loadAll_descriptionPoolEnabled_sharesRepeatedDescriptions() throws Exception {
+        Path file = tempDir.resolve("greg.txt");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append(i % 2 == 0 ? "E | 0 | weekly sync | 2026-03-02 | 1400 | 2026-03-02 | 1500\n" : "T | 0 | read book\n");
+        }
+        Files.writeString(file, lines.toString());
+
+        DescriptionPool.enable();
+        try {
+            List<Task> tasks = new Storage(file.toString()).loadAll();
+
+            assertSame(tasks.get(0).getDescription(), tasks.get(998).getDescription());
+            assertSame(tasks.get(1).getDescription(), new Todo("read book ").getDescription());
+            DescriptionPoolStats stats = DescriptionPool.getStats();
+            assertTrue(stats.getHitCount() >= 999);
+            assertTrue(stats.getBytesSaved() >= 999 * 48);
+
+            // Copies rebuilt on every read of a columnar store are not pooled or counted.
+            ColumnarTaskStore columns = ColumnarTaskStore.of(tasks);
+            for (int i = 0; i < 1000; i++) {
+                columns.get(0);
+            }
+            assertEquals(stats.getLookupCount(), DescriptionPool.getStats().getLookupCount());
+            assertEquals(stats.getBytesSaved(), DescriptionPool.getStats().getBytesSaved());
+        } finally {
+            DescriptionPool.disable();
+        }
+        assertFalse(DescriptionPool.getStats().isEnabled());
+    }
+
+    /**
+     * Returns the text save file holding {@code lines} as a single checksummed block.
+     */
+    private static String checksummed(String lines) {
+        CRC32C crc = new CRC32C();
+        crc.update(lines.getBytes(StandardCharsets.UTF_8));
+        long count = lines.chars().filter(c -> c == '\n').count();
+        return "# greg-save | 1 | " + count + "\n" + lines + String.format("# crc32c | %08x\n", crc.getValue());
+    }
+}
@@ -0,0 +1,407 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import greg.exception.GregException;
+import greg.model.ColumnarTaskStore;
+import greg.model.Deadline;
+import greg.model.Event;
+import greg.model.FindStrategy;
+import greg.model.RankedMatches;
+import greg.model.Task;
+import greg.model.TaskList;
+import greg.model.Todo;
+
+public class TaskListTest {
+
+    private static final String[] WORDS = {"read", "book", "Return", "bookshelf", "camp", "CAMPING", "meet", "team"};
+
+    @Test
+    public void find_wordIndex_matchesLinearScanAcrossAddsAndDeletes() throws GregException {
+        Random random = new Random(11);
+        TaskList indexed = new TaskList();
+        TaskList linear = new TaskList();
+        linear.setFindStrategy(FindStrategy.LINEAR);
+
+        for (int round = 0; round < 2000; round++) {
+            if (indexed.size() > 0 && random.nextInt(4) == 0) {
+                int number = 1 + random.nextInt(indexed.size());
+                indexed.delete(number);
+                linear.delete(number);
+            } else {
+                Task task = new Todo(randomDescription(random));
+                indexed.add(task);
+                linear.add(task);
+            }
+
+            if (round % 50 == 0) {
+                for (String query : new String[] {"book", "CAMP  team", "ook", "turn read", "xyz", "   "}) {
+                    assertEquals(linear.find(query), indexed.find(query), query);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void find_trigramIndex_matchesLinearScanAcrossAddsAndDeletes() throws GregException {
+        Random random = new Random(12);
+        TaskList indexed = new TaskList();
+        indexed.setFindStrategy(FindStrategy.TRIGRAM_INDEX);
+        TaskList linear = new TaskList();
+        linear.setFindStrategy(FindStrategy.LINEAR);
+
+        for (int round = 0; round < 5000; round++) {
+            if (indexed.size() > 0 && random.nextInt(3) == 0) {
+                int number = 1 + random.nextInt(indexed.size());
+                indexed.delete(number);
+                linear.delete(number);
+            } else {
+                Task task = new Todo(randomDescription(random));
+                indexed.add(task);
+                linear.add(task);
+            }
+
+            if (round % 50 == 0) {
+                for (String query : new String[] {"bookshelf", "ok re", "k t", "mping", "okbo", "AMP xyz", "ee"}) {
+                    assertEquals(linear.find(query), indexed.find(query), query);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void find_substringOfWord_returnsTasksInListOrder() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Todo("return book"));
+        list.add(new Todo("go camping"));
+        list.add(new Todo("buy bookshelf"));
+
+        List<Task> found = list.find("BOOK");
+
+        assertEquals(2, found.size());
+        assertEquals("return book", found.get(0).getDescription());
+        assertEquals("buy bookshelf", found.get(1).getDescription());
+    }
+
+    @Test
+    public void delete_manyTasks_keepsOrderAndIds() throws GregException {
+        Random random = new Random(13);
+        TaskList list = new TaskList();
+        List<Task> expected = new ArrayList<>();
+
+        for (int round = 0; round < 3000; round++) {
+            if (!expected.isEmpty() && random.nextInt(5) < 2) {
+                int number = 1 + random.nextInt(expected.size());
+                assertSame(expected.remove(number - 1), list.delete(number));
+            } else {
+                Task task = new Todo("task " + round);
+                list.add(task);
+                expected.add(task);
+            }
+        }
+
+        assertEquals(expected, list.getAll());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, list.toTaskNumber(expected.get(i).getId()));
+        }
+    }
+
+    @Test
+    public void toTaskNumber_afterEarlierDelete_followsTask() throws GregException {
+        TaskList list = new TaskList(List.of(new Todo("read book"), new Todo("return book")));
+        int id = list.getAll().get(1).getId();
+
+        list.delete(1);
+
+        assertEquals(1, list.toTaskNumber(id));
+        assertEquals("return book", list.mark(list.toTaskNumber(id)).getDescription());
+        GregException e = assertThrows(GregException.class, () -> list.toTaskNumber(id - 1));
+        assertEquals("Error: No task has handle #" + (id - 1) + ".", e.getMessage());
+    }
+
+    @Test
+    public void ids_assignedOnEntry_notWhenRead() throws GregException {
+        Task first = new Todo("read book");
+        Task second = new Todo("return book");
+        TaskList list = new TaskList(List.of(first, second));
+        Task added = new Todo("go gym");
+        list.add(added);
+
+        assertEquals(List.of(1, 2, 3), List.of(first.getId(), second.getId(), added.getId()));
+        list.delete(1);
+        list.restore(first);
+        assertEquals(1, first.getId());
+    }
+
+    @Test
+    public void findDue_mixedTasks_returnsDeadlinesInRangeByDueTime() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Deadline("pay rent", "2026-03-05"));
+        list.add(new Todo("read book"));
+        list.add(new Deadline("submit report", "2026-03-05 0900"));
+        list.add(new Deadline("return book", "2026-03-01 1800"));
+        list.add(new Deadline("renew passport", "2026-04-01"));
+        list.delete(1);
+        list.add(new Deadline("water plants", "2026-03-07"));
+
+        assertEquals(List.of("return book", "submit report", "water plants"),
+                descriptionsOf(list.findDue(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-07"))));
+        assertEquals(List.of("submit report", "water plants"),
+                descriptionsOf(list.findUpcoming(LocalDateTime.parse("2026-03-01T18:01"), 2)));
+        assertEquals(List.of("renew passport"),
+                descriptionsOf(list.findUpcoming(LocalDateTime.parse("2026-04-01T23:59"), 5)));
+    }
+
+    @Test
+    public void findClashes_randomEvents_matchesPairwiseOverlap() throws GregException {
+        Random random = new Random(15);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 300; i++) {
+            list.add(randomEvent(random, "event " + i));
+            if (random.nextInt(4) == 0) {
+                list.delete(1 + random.nextInt(list.size()));
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Event probe = randomEvent(random, "probe");
+            List<Task> expected = new ArrayList<>();
+            for (Task task : list.getAll()) {
+                Event other = (Event) task;
+                if (startOf(other).compareTo(endOf(probe)) < 0 && startOf(probe).compareTo(endOf(other)) < 0) {
+                    expected.add(other);
+                }
+            }
+            expected.sort(Comparator.comparing((Task task) -> startOf((Event) task)).thenComparing(Task::getId));
+            assertEquals(expected, list.findClashes(probe));
+        }
+    }
+
+    @Test
+    public void findEventsOn_allDayAndTimedEvents_returnsEventsTouchingDate() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Event("camp", "2026-03-10", "2026-03-12"));
+        list.add(new Event("late party", "2026-03-12 2200", "2026-03-13 0200"));
+        list.add(new Event("breakfast", "2026-03-13 0800", "2026-03-13 0900"));
+        list.add(new Event("trip", "2026-03-14", "2026-03-15"));
+
+        assertEquals(List.of("camp", "late party"), descriptionsOf(list.findEventsOn(LocalDate.parse("2026-03-12"))));
+        assertEquals(List.of("late party", "breakfast"),
+                descriptionsOf(list.findEventsOn(LocalDate.parse("2026-03-13"))));
+        assertEquals(List.of("breakfast"), descriptionsOf(list.findClashes(new Event("call", "2026-03-13 0830",
+                "2026-03-13 0845"))));
+        assertEquals(List.of(), list.findClashes(new Event("call", "2026-03-13 0900", "2026-03-13 0930")));
+    }
+
+    @Test
+    public void columnarStore_randomOperations_behavesLikeObjectList() throws GregException {
+        Random random = new Random(16);
+        TaskList objects = new TaskList();
+        TaskList columns = TaskList.backedBy(new ColumnarTaskStore());
+
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(10);
+            if (objects.size() > 0 && op < 3) {
+                int number = 1 + random.nextInt(objects.size());
+                assertEquals(objects.delete(number).toString(), columns.delete(number).toString());
+            } else if (objects.size() > 0 && op < 5) {
+                int number = 1 + random.nextInt(objects.size());
+                assertEquals(objects.mark(number).toString(), columns.mark(number).toString());
+            } else if (objects.size() > 0 && op < 6) {
+                int number = 1 + random.nextInt(objects.size());
+                assertEquals(objects.unmark(number).toString(), columns.unmark(number).toString());
+            } else {
+                String description = randomDescription(random) + " \u00e9t\u00e9 " + round;
+                Task task = op == 6 ? new Deadline(description, "2026-03-0" + (1 + random.nextInt(9)) + " 0930")
+                        : op == 7 ? randomEvent(random, description)
+                        : new Todo(description);
+                objects.add(task);
+                columns.add(Task.fromSaveString(task.toSaveString()));
+            }
+        }
+
+        assertEquals(objects.getAll().toString(), columns.getAll().toString());
+        assertEquals(objects.find("book").toString(), columns.find("book").toString());
+        assertEquals(objects.findDue(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-05")).toString(),
+                columns.findDue(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-05")).toString());
+    }
+
+    @Test
+    public void findTop_rankedByTermCountRarityAndRecency() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Todo("weekly sync"));
+        list.add(new Todo("weekly report"));
+        list.add(new Todo("weekly sync notes"));
+        list.add(new Todo("sync report"));
+        list.add(new Todo("weekly review"));
+
+        RankedMatches matches = list.findTop("weekly report", 3);
+
+        // "report" is rarer than "weekly"; the newest of the "weekly"-only tasks wins the tie.
+        assertEquals(5, matches.getMatchCount());
+        assertEquals(List.of("weekly report", "sync report", "weekly review"), descriptionsOf(matches.getTasks()));
+    }
+
+    @Test
+    public void findTop_largeLimit_returnsSameTasksAsFind() throws GregException {
+        Random random = new Random(18);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 500; i++) {
+            list.add(new Todo(randomDescription(random)));
+        }
+
+        for (String query : new String[] {"book camp", "ee", "xyz"}) {
+            List<Task> ranked = new ArrayList<>(list.findTop(query, 1000).getTasks());
+            ranked.sort(Comparator.comparing(Task::getId));
+            assertEquals(list.find(query), ranked, query);
+        }
+    }
+
+    @Test
+    public void findTop_hugeLimit_sizesResultByMatches() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Todo("return book"));
+
+        assertEquals(2, list.findTop("book", Integer.MAX_VALUE).getTasks().size());
+    }
+
+    @Test
+    public void deleteAllAndMarkAll_matchSingleOperations() throws GregException {
+        Random random = new Random(20);
+        TaskList list = new TaskList();
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Todo todo = new Todo("task " + i);
+            list.add(todo);
+            expected.add(todo);
+        }
+
+        for (int round = 0; round < 30 && !expected.isEmpty(); round++) {
+            int[] numbers = random.ints(1 + random.nextInt(20), 1, expected.size() + 1).sorted().distinct().toArray();
+            if (random.nextBoolean()) {
+                boolean isDone = random.nextBoolean();
+                list.markAll(numbers, isDone);
+                for (int n : numbers) {
+                    expected.get(n - 1).mark(isDone);
+                }
+            } else {
+                List<Task> deleted = list.deleteAll(numbers);
+                for (int i = numbers.length - 1; i >= 0; i--) {
+                    assertSame(expected.remove(numbers[i] - 1), deleted.get(i));
+                }
+            }
+            assertEquals(expected, list.getAll());
+        }
+
+        List<Task> done = new ArrayList<>();
+        for (int n : list.getDoneTaskNumbers()) {
+            done.add(list.getAll().get(n - 1));
+        }
+        expected.removeIf(task -> !task.isMarked());
+        assertEquals(expected, done);
+    }
+
+    @Test
+    public void deleteAll_outOfRange_changesNothing() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Todo("go gym"));
+
+        assertThrows(GregException.class, () -> list.deleteAll(new int[] {1, 3}));
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    public void restore_afterDeleteAndCompaction_bringsBackOrderIdsAndMatches() throws GregException {
+        for (int deleted : new int[] {1, 100}) {
+            TaskList list = new TaskList();
+            for (int i = 0; i < 300; i++) {
+                list.add(new Todo(i % 3 == 0 ? "read book " + i : "go gym " + i));
+            }
+            List<Task> before = new ArrayList<>(list.getAll());
+            List<Task> booksBefore = list.find("book");
+
+            int[] numbers = new int[deleted];
+            for (int i = 0; i < deleted; i++) {
+                numbers[i] = 2 * i + 1;
+            }
+            List<Task> removed = list.deleteAll(numbers);
+            for (Task task : removed) {
+                list.restore(task);
+            }
+
+            assertEquals(before, list.getAll());
+            assertEquals(booksBefore, list.find("book"));
+            assertEquals(booksBefore, list.find("ook"));
+            for (int i = 0; i < before.size(); i++) {
+                assertEquals(i + 1, list.toTaskNumber(before.get(i).getId()));
+            }
+            assertThrows(GregException.class, () -> list.restore(before.get(0)));
+        }
+    }
+
+    @Test
+    public void restoreAll_oneTaskNotDeleted_restoresNothing() throws GregException {
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Todo("go gym"));
+        Task deleted = list.delete(1);
+
+        assertThrows(GregException.class, () -> list.restoreAll(List.of(deleted, list.get(1))));
+        assertThrows(GregException.class, () -> list.restoreAll(List.of(deleted, deleted)));
+        assertEquals(1, list.size());
+
+        list.restoreAll(List.of(deleted));
+        assertEquals(List.of("read book", "go gym"), descriptionsOf(list.getAll()));
+    }
+
+    private static Event randomEvent(Random random, String description) throws GregException {
+        LocalDate from = LocalDate.parse("2026-03-01").plusDays(random.nextInt(20));
+        LocalDate to = from.plusDays(random.nextInt(3));
+        String fromTime = random.nextBoolean() ? "" : String.format(" %02d%02d", random.nextInt(24), random.nextInt(60));
+        String toTime = random.nextBoolean() ? "" : String.format(" %02d%02d", random.nextInt(24), random.nextInt(60));
+        return new Event(description, from + fromTime, to + toTime);
+    }
+
+    private static LocalDateTime startOf(Event event) {
+        String time = event.getFromTime().isEmpty() ? "0000" : event.getFromTime();
+        return event.getFromDate().atTime(Integer.parseInt(time) / 100, Integer.parseInt(time) % 100);
+    }
+
+    private static LocalDateTime endOf(Event event) {
+        if (event.getToTime().isEmpty()) {
+            return event.getToDate().plusDays(1).atStartOfDay();
+        }
+        int time = Integer.parseInt(event.getToTime());
+        return event.getToDate().atTime(time / 100, time % 100);
+    }
+
+    private static List<String> descriptionsOf(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.getDescription());
+        }
+        return descriptions;
+    }
+
+    private static String randomDescription(Random random) {
+        StringBuilder description = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        int extra = random.nextInt(3);
+        for (int i = 0; i < extra; i++) {
+            description.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package greg;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import greg.exception.GregException;
+import greg.model.TaskList;
+import greg.model.Todo;
+import greg.ui.Ui;
+
+public class UiTest {
+
+    @Test
+    public void getTaskListPage_middlePage_numbersTasksByPosition() throws GregException {
+        TaskList list = new TaskList();
+        for (int i = 1; i <= 5; i++) {
+            list.add(new Todo("task " + i));
+        }
+
+        assertEquals("3. [T][ ] task 3 (#3)\n4. [T][ ] task 4 (#4)\n\n"
+                + "Page 2 of 3 (tasks 3-4 of 5). Type \"list 3\" for the next page.",
+                new Ui().getTaskListPage(list.getAll(), 2, 2));
+        assertEquals("There is no page 4; the list has 3 page(s) of 2 tasks.",
+                new Ui().getTaskListPage(list.getAll(), 4, 2));
+    }
+
+    @Test
+    public void getTaskListPage_singlePage_hasNoFooter() throws GregException {
+        TaskList list = new TaskList();
+        for (int i = 1; i <= 3; i++) {
+            list.add(new Todo("task " + i));
+        }
+
+        assertEquals("1. [T][ ] task 1 (#1)\n2. [T][ ] task 2 (#2)\n3. [T][ ] task 3 (#3)",
+                new Ui().getTaskListPage(list.getAll(), 1, 100));
+    }
+}